@@ -0,0 +1,79 @@
+package com.groupironpanel;
+
+import net.runelite.api.widgets.Widget;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the auto-detection of the group information from synthetic group ironman tab widgets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GroupInfoParserBenchmark {
+    private Widget[] groupNameWidgets;
+
+    private Widget[] groupMemberWidgets;
+
+    @Setup
+    public void setUp() {
+        groupNameWidgets = new Widget[]{
+                widget("", null),
+                widget("Iron Fellowship", null),
+        };
+
+        // Each member row is made up of several widgets, only one of which names the member.
+        groupMemberWidgets = new Widget[25];
+        for (int i = 0; i < groupMemberWidgets.length; i++) {
+            String name = i % 5 == 0 ? "<col=ff9040>Member " + (i / 5 + 1) + "</col>" : "";
+            groupMemberWidgets[i] = widget(null, name);
+        }
+    }
+
+    /**
+     * The cost paid for every script event while the group tab is open.
+     */
+    @Benchmark
+    public int fingerprint() {
+        return GroupInfoParser.fingerprint(groupNameWidgets, groupMemberWidgets);
+    }
+
+    /**
+     * The cost paid when the contents of the group tab change.
+     */
+    @Benchmark
+    public List<String> parseGroupMembers() {
+        return GroupInfoParser.parseGroupMembers(groupMemberWidgets);
+    }
+
+    @Benchmark
+    public String parseGroupName() {
+        return GroupInfoParser.parseGroupName(groupNameWidgets);
+    }
+
+    private static Widget widget(String text, String name) {
+        return (Widget) Proxy.newProxyInstance(Widget.class.getClassLoader(), new Class<?>[]{Widget.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getText":
+                    return text;
+                case "getName":
+                    return name;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package com.groupironpanel;
+
+import net.runelite.client.hiscore.HiscoreClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a full refresh of a five member group against hiscores served from memory, so that only the plugin's own
+ * refresh path and the hiscore parsing are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GroupIronPanelBenchmark {
+    private static final List<String> GROUP_MEMBERS = Arrays.asList("Member 1", "Member 2", "Member 3", "Member 4", "Member 5");
+
+    private ScheduledExecutorService executor;
+
+    private GroupIronPanel panel;
+
+    @Setup
+    public void setUp() {
+        PlayerStats stats = BenchmarkData.randomStats("Member", new Random(42));
+        HiscoreClient hiscoreClient = new HiscoreClient(BenchmarkData.inMemoryHiscoreClient(stats));
+
+        executor = Executors.newSingleThreadScheduledExecutor();
+        HiscoreLookupGateway lookupGateway = new HiscoreLookupGateway(hiscoreClient, GROUP_MEMBERS.size());
+        panel = new GroupIronPanel(lookupGateway, executor, new PanelMetrics(lookupGateway));
+        panel.setGroupMembers(GROUP_MEMBERS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public List<PlayerStats> refreshPanel() {
+        return panel.refreshPanel().join();
+    }
+}
@@ -0,0 +1,53 @@
+package com.groupironpanel;
+
+import net.runelite.client.hiscore.HiscoreClient;
+import net.runelite.client.hiscore.HiscoreEndpoint;
+import net.runelite.client.hiscore.HiscoreResult;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the work each lookup path does once the response has arrived: copying a {@code HiscoreResult} built by
+ * {@link HiscoreClient} into {@link PlayerStats}, against streaming the skills of a CSV response straight into
+ * {@link PlayerStats} with {@link StreamingHiscoreClient}. No HTTP client, threads or futures are involved, so the
+ * timings are of the parsing and copying alone. The {@code HiscoreResult} is built once up front, so its JSON
+ * decoding, which the streaming path doesn't need, isn't included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HiscoreLookupBenchmark {
+    private HiscoreResult hiscoreResult;
+
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        PlayerStats stats = BenchmarkData.randomStats("Member", new Random(42));
+        hiscoreResult = new HiscoreClient(BenchmarkData.inMemoryHiscoreClient(stats))
+                .lookupAsync("Member", HiscoreEndpoint.NORMAL)
+                .join();
+        csv = BenchmarkData.toCsv(stats).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public PlayerStats fromHiscoreResult() {
+        return PlayerStats.fromHiscoreResult(hiscoreResult, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public PlayerStats streamingParse() throws IOException {
+        return StreamingHiscoreClient.parse("Member", System.currentTimeMillis(), new Buffer().write(csv));
+    }
+}
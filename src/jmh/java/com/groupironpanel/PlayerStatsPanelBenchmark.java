@@ -0,0 +1,92 @@
+package com.groupironpanel;
+
+import net.runelite.client.hiscore.HiscoreSkill;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the work done on the EDT when a member's stats are shown.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlayerStatsPanelBenchmark {
+    private PlayerStatsPanel panel;
+
+    private PlayerStats stats;
+
+    private PlayerStats otherStats;
+
+    private PlayerStats statsWithXpGained;
+
+    private boolean toggle;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        stats = BenchmarkData.randomStats("Player", random);
+        otherStats = BenchmarkData.randomStats("Player", random);
+        statsWithXpGained = BenchmarkData.withXpGained(stats, HiscoreSkill.HERBLORE, 1_000);
+
+        panel = new PlayerStatsPanel();
+        panel.setPlayer("Player");
+        panel.updateStats(stats);
+    }
+
+    /**
+     * Every label changes, as when a member is shown for the first time.
+     */
+    @Benchmark
+    public PlayerStatsPanel updateStatsAllChanged() {
+        toggle = !toggle;
+        panel.updateStats(toggle ? otherStats : stats);
+        return panel;
+    }
+
+    /**
+     * A single skill changes, which is the common case for a refresh.
+     */
+    @Benchmark
+    public PlayerStatsPanel updateStatsOneSkillChanged() {
+        toggle = !toggle;
+        panel.updateStats(toggle ? statsWithXpGained : stats);
+        return panel;
+    }
+
+    /**
+     * Nothing changes.
+     */
+    @Benchmark
+    public PlayerStatsPanel updateStatsUnchanged() {
+        panel.updateStats(stats);
+        return panel;
+    }
+
+    @Benchmark
+    public String buildSkillTooltip() {
+        return panel.buildSkillPanelTooltip(stats, HiscoreSkill.HERBLORE);
+    }
+
+    @Benchmark
+    public String buildOverallTooltip() {
+        return panel.buildSkillPanelTooltip(stats, HiscoreSkill.OVERALL);
+    }
+
+    @Benchmark
+    public String buildCombatTooltip() {
+        return panel.buildSkillPanelTooltip(stats, null);
+    }
+
+    @Benchmark
+    public int combatLevel() {
+        return PlayerStatsPanel.getCombatLevel(stats);
+    }
+}
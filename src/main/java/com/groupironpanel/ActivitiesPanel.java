@@ -0,0 +1,194 @@
+package com.groupironpanel;
+
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.hiscore.HiscoreSkillType;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+import net.runelite.client.util.QuantityFormatter;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shows a member's boss kill counts, clue scrolls and activity scores from the same hiscores as their skills, when
+ * expanded. Only the entries with a score are shown, and no rows are created until the section is first expanded.
+ * While collapsed, new stats are only remembered, so the section costs nothing until it is opened. The section is hidden
+ * while bosses and activities aren't being looked up. Only accessed on the EDT.
+ */
+class ActivitiesPanel extends JPanel {
+    /**
+     * Every boss and activity on the hiscores, in the order the hiscores list them.
+     */
+    private static final List<HiscoreSkill> ACTIVITIES;
+
+    static {
+        List<HiscoreSkill> activities = new ArrayList<>();
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            if (skill.getType() != HiscoreSkillType.SKILL && skill.getType() != HiscoreSkillType.OVERALL) {
+                activities.add(skill);
+            }
+        }
+        ACTIVITIES = Collections.unmodifiableList(activities);
+    }
+
+    private final JLabel headerLabel;
+
+    private JPanel rowsPanel;
+
+    private PlayerStats stats;
+
+    /**
+     * The stats the rows were last built from, so that rows are only rebuilt when a score changed.
+     */
+    private PlayerStats shownStats;
+
+    private boolean expanded;
+
+    private boolean available = true;
+
+    ActivitiesPanel() {
+        setLayout(new BorderLayout());
+        setBackground(ColorScheme.DARKER_GRAY_COLOR);
+
+        headerLabel = new JLabel("Bosses & activities");
+        headerLabel.setFont(FontManager.getRunescapeSmallFont());
+        headerLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        headerLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        headerLabel.setToolTipText("Click to show boss kill counts, clue scrolls and activities");
+        headerLabel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                super.mouseClicked(e);
+                setExpanded(!expanded);
+            }
+        });
+        add(headerLabel, BorderLayout.NORTH);
+
+        setVisible(false);
+    }
+
+    /**
+     * Shows a member's latest stats. The rows are only updated if the section is expanded.
+     *
+     * @param stats The member's stats, or null to clear the section.
+     */
+    void setStats(PlayerStats stats) {
+        this.stats = stats;
+        setVisible(stats != null && available);
+        if (expanded) {
+            updateRows();
+        }
+    }
+
+    /**
+     * Sets whether bosses and activities are being looked up. While they aren't, every entry in the stats is empty,
+     * so the section is hidden rather than claiming the member has nothing to show.
+     *
+     * @param available Whether bosses and activities are being looked up.
+     */
+    void setAvailable(boolean available) {
+        this.available = available;
+        setVisible(stats != null && available);
+    }
+
+    private void setExpanded(boolean expanded) {
+        this.expanded = expanded;
+        if (expanded && rowsPanel == null) {
+            rowsPanel = new JPanel(new GridLayout(0, 1));
+            rowsPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+            rowsPanel.setBorder(new EmptyBorder(5, 0, 0, 0));
+            add(rowsPanel, BorderLayout.CENTER);
+        }
+        if (expanded) {
+            updateRows();
+        }
+        rowsPanel.setVisible(expanded);
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Rebuilds the rows from the latest stats, unless none of the scores changed since they were last built.
+     */
+    private void updateRows() {
+        if (stats == null || !haveScoresChanged(shownStats, stats)) {
+            return;
+        }
+        shownStats = stats;
+
+        rowsPanel.removeAll();
+        for (HiscoreSkill activity : ACTIVITIES) {
+            if (stats.getLevel(activity) > 0) {
+                rowsPanel.add(new ActivityRow(stats, activity));
+            }
+        }
+        if (rowsPanel.getComponentCount() == 0) {
+            JLabel emptyLabel = new JLabel("No bosses or activities to show");
+            emptyLabel.setFont(FontManager.getRunescapeSmallFont());
+            emptyLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+            emptyLabel.setHorizontalAlignment(SwingConstants.CENTER);
+            rowsPanel.add(emptyLabel);
+        }
+        rowsPanel.revalidate();
+        rowsPanel.repaint();
+    }
+
+    private static boolean haveScoresChanged(PlayerStats previousStats, PlayerStats playerStats) {
+        if (previousStats == null) {
+            return true;
+        }
+        if (previousStats == playerStats) {
+            return false;
+        }
+        for (HiscoreSkill activity : ACTIVITIES) {
+            if (previousStats.getLevel(activity) != playerStats.getLevel(activity)
+                    || previousStats.getRank(activity) != playerStats.getRank(activity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The score in a single boss or activity, with the rank built lazily as the tooltip.
+     */
+    private static class ActivityRow extends JLabel {
+        private final PlayerStats stats;
+
+        private final HiscoreSkill activity;
+
+        private String tooltip;
+
+        ActivityRow(PlayerStats stats, HiscoreSkill activity) {
+            this.stats = stats;
+            this.activity = activity;
+            setFont(FontManager.getRunescapeSmallFont());
+            setText(activity.getName() + ": " + QuantityFormatter.formatNumber(stats.getLevel(activity)));
+            setToolTipText(activity.getName());
+        }
+
+        @Override
+        public String getToolTipText() {
+            if (tooltip == null) {
+                tooltip = buildTooltip();
+            }
+            return tooltip;
+        }
+
+        private String buildTooltip() {
+            String rank = stats.getRank(activity) == -1 ? "Unranked" : QuantityFormatter.formatNumber(stats.getRank(activity));
+            String scoreName = activity.getType() == HiscoreSkillType.BOSS ? "Kill count" : "Score";
+            return "<html><body style = 'padding: 5px;color:#989898'>"
+                    + "<p><span style = 'color:white'>" + activity.getName() + "</span></p>"
+                    + "<p><span style = 'color:white'>Rank:</span> " + rank + "</p>"
+                    + "<p><span style = 'color:white'>" + scoreName + ":</span> " + QuantityFormatter.formatNumber(stats.getLevel(activity)) + "</p>"
+                    + "</body></html>";
+        }
+    }
+}
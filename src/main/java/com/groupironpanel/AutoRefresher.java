@@ -0,0 +1,184 @@
+package com.groupironpanel;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.util.Text;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Periodically refreshes each group member's hiscores in the background while the panel is shown.
+ * Every member is polled on its own jittered schedule so the lookups don't all fire at once. Members whose lookups
+ * fail are backed off exponentially, and members whose overall XP hasn't changed in a while are polled less often.
+ * Polls cancelled by another refresh of the panel, and members who aren't on the hiscores, don't count as failures.
+ */
+@Slf4j
+public class AutoRefresher {
+    private static final int MAX_BACKOFF_EXPONENT = 4;
+
+    private static final int UNCHANGED_POLLS_PER_SLOWDOWN = 3;
+
+    private static final int MAX_SLOWDOWN = 4;
+
+    private static final double JITTER = 0.2;
+
+    private final ScheduledExecutorService executor;
+
+    private final GroupIronPanelConfig config;
+
+    private final GroupIronPanel panel;
+
+    private final Consumer<List<PlayerStats>> refreshListener;
+
+    private final PanelMetrics metrics;
+
+    private final Map<String, MemberSchedule> schedules = new HashMap<>();
+
+    private boolean panelActive;
+
+    private boolean enabled;
+
+    private long intervalMillis;
+
+    private List<String> members = Collections.emptyList();
+
+    /**
+     * @param refreshListener Called with the freshly fetched hiscores after each successful poll.
+     * @param metrics         Counts the polls that are run.
+     */
+    public AutoRefresher(ScheduledExecutorService executor, GroupIronPanelConfig config, GroupIronPanel panel,
+                         Consumer<List<PlayerStats>> refreshListener, PanelMetrics metrics) {
+        this.executor = executor;
+        this.config = config;
+        this.panel = panel;
+        this.refreshListener = refreshListener;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Updates whether the panel is currently shown. Polling only happens while it is.
+     *
+     * @param active Whether the panel is shown.
+     */
+    public synchronized void setPanelActive(boolean active) {
+        panelActive = active;
+        reschedule();
+    }
+
+    /**
+     * Picks up changes to the configuration. The polling schedules are only reset if the auto-refresh settings or
+     * the group members actually changed.
+     */
+    public synchronized void reschedule() {
+        final boolean enabled = config.autoRefresh() && panelActive;
+        final long intervalMillis = TimeUnit.MINUTES.toMillis(Math.max(1, config.autoRefreshInterval()));
+        final List<String> members = Text.fromCSV(config.groupMembers());
+        if (enabled == this.enabled && intervalMillis == this.intervalMillis && members.equals(this.members)) {
+            return;
+        }
+        this.enabled = enabled;
+        this.intervalMillis = intervalMillis;
+        this.members = members;
+
+        cancelAll();
+        if (!enabled) {
+            return;
+        }
+
+        for (int i = 0; i < members.size(); i++) {
+            String member = members.get(i);
+            MemberSchedule schedule = new MemberSchedule();
+            schedules.put(member, schedule);
+            // Stagger the first polls across the interval on top of the per-poll jitter.
+            long initialDelay = intervalMillis * (i + 1) / members.size();
+            schedule.nextPoll = executor.schedule(() -> poll(member, schedule), jitter(initialDelay), TimeUnit.MILLISECONDS);
+        }
+        log.debug("Auto-refreshing {} group members every {} ms", members.size(), intervalMillis);
+    }
+
+    /**
+     * Stops all polling.
+     */
+    public synchronized void shutDown() {
+        enabled = false;
+        members = Collections.emptyList();
+        cancelAll();
+    }
+
+    private void cancelAll() {
+        for (MemberSchedule schedule : schedules.values()) {
+            if (schedule.nextPoll != null) {
+                schedule.nextPoll.cancel(false);
+            }
+        }
+        schedules.clear();
+    }
+
+    private void poll(String member, MemberSchedule schedule) {
+        synchronized (this) {
+            if (schedules.get(member) != schedule) {
+                return;
+            }
+        }
+        metrics.recordRefresh(PanelMetrics.RefreshSource.AUTO_REFRESH);
+        panel.refreshMember(member).whenComplete((playerStats, ex) -> onPollComplete(member, schedule, playerStats, ex));
+    }
+
+    private synchronized void onPollComplete(String member, MemberSchedule schedule, PlayerStats playerStats, Throwable ex) {
+        if (schedules.get(member) != schedule) {
+            // The schedules were reset while the lookup was in flight, and the new schedule polls on its own.
+            return;
+        }
+
+        if (ex != null && unwrap(ex) instanceof CancellationException) {
+            // Another refresh of the panel superseded the poll, which says nothing about the member's lookups.
+            schedule.nextPoll = executor.schedule(() -> poll(member, schedule), jitter(intervalMillis), TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        if (ex != null) {
+            schedule.failures = Math.min(schedule.failures + 1, MAX_BACKOFF_EXPONENT);
+        } else if (playerStats == null) {
+            // The member isn't on the hiscores, or is logged in here and has no stats yet.
+            schedule.failures = 0;
+        } else {
+            schedule.failures = 0;
+            long overallXp = playerStats.getExperience(HiscoreSkill.OVERALL);
+            schedule.unchangedPolls = overallXp == schedule.lastOverallXp ? schedule.unchangedPolls + 1 : 0;
+            schedule.lastOverallXp = overallXp;
+            refreshListener.accept(Collections.singletonList(playerStats));
+        }
+
+        long delay = intervalMillis << Math.min(schedule.failures, MAX_BACKOFF_EXPONENT);
+        delay *= Math.min(1 << (schedule.unchangedPolls / UNCHANGED_POLLS_PER_SLOWDOWN), MAX_SLOWDOWN);
+        schedule.nextPoll = executor.schedule(() -> poll(member, schedule), jitter(delay), TimeUnit.MILLISECONDS);
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private static long jitter(long delayMillis) {
+        return (long) (delayMillis * (1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER)));
+    }
+
+    private static class MemberSchedule {
+        private ScheduledFuture<?> nextPoll;
+
+        private int failures;
+
+        private int unchangedPolls;
+
+        private long lastOverallXp = -1;
+    }
+}
@@ -0,0 +1,192 @@
+package com.groupironpanel;
+
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.util.Text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static net.runelite.client.hiscore.HiscoreSkill.OVERALL;
+
+/**
+ * Keeps the group's totals and the best member in each skill, updated incrementally as each member's stats arrive.
+ * <p>
+ * Updating a member only looks at the skills whose XP changed for that member, and only rescans the other members
+ * for a skill when the member who was best in it loses XP or leaves the group. Not thread safe.
+ */
+class GroupAggregate {
+    private static final List<HiscoreSkill> AGGREGATED_SKILLS;
+
+    static {
+        List<HiscoreSkill> skills = new ArrayList<>();
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            if (XpHistoryStore.isTracked(skill)) {
+                skills.add(skill);
+            }
+        }
+        AGGREGATED_SKILLS = Collections.unmodifiableList(skills);
+    }
+
+    /**
+     * The stats of each member, keyed by the standardized name.
+     */
+    private final Map<String, PlayerStats> members = new LinkedHashMap<>();
+
+    /**
+     * The key of the member with the most XP in each skill, indexed by {@link HiscoreSkill#ordinal()}.
+     */
+    private final String[] bestMembers = new String[PlayerStats.HISCORE_SKILLS.length];
+
+    private final long[] bestXp = new long[PlayerStats.HISCORE_SKILLS.length];
+
+    private long totalLevel;
+
+    private long totalXp;
+
+    GroupAggregate() {
+        Arrays.fill(bestXp, -1L);
+    }
+
+    /**
+     * Returns the skills that are aggregated: every skill, and the overall level.
+     */
+    static List<HiscoreSkill> getAggregatedSkills() {
+        return AGGREGATED_SKILLS;
+    }
+
+    /**
+     * Updates the stats of a member.
+     *
+     * @param stats The member's latest stats.
+     * @return The skills whose best member or gaps may have changed.
+     */
+    List<HiscoreSkill> update(PlayerStats stats) {
+        final String key = Text.standardize(stats.getPlayer());
+        final PlayerStats previous = members.put(key, stats);
+        if (previous != null) {
+            totalLevel -= Math.max(0, previous.getLevel(OVERALL));
+            totalXp -= Math.max(0, previous.getExperience(OVERALL));
+        }
+        totalLevel += Math.max(0, stats.getLevel(OVERALL));
+        totalXp += Math.max(0, stats.getExperience(OVERALL));
+
+        List<HiscoreSkill> changed = new ArrayList<>();
+        for (HiscoreSkill skill : AGGREGATED_SKILLS) {
+            final int i = skill.ordinal();
+            final long xp = stats.getExperience(skill);
+            if (previous != null && previous.getExperience(skill) == xp && previous.getLevel(skill) == stats.getLevel(skill)) {
+                continue;
+            }
+            changed.add(skill);
+
+            if (key.equals(bestMembers[i]) && xp < bestXp[i]) {
+                findBest(skill);
+            } else if (xp > bestXp[i]) {
+                bestXp[i] = xp;
+                bestMembers[i] = key;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Forgets the members that are no longer in the group.
+     *
+     * @param groupMembers The names of the members still in the group.
+     * @return The skills whose best member or gaps may have changed.
+     */
+    List<HiscoreSkill> retainMembers(Collection<String> groupMembers) {
+        Set<String> keys = new HashSet<>();
+        for (String member : groupMembers) {
+            keys.add(Text.standardize(member));
+        }
+
+        boolean removed = false;
+        for (Iterator<Map.Entry<String, PlayerStats>> it = members.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, PlayerStats> entry = it.next();
+            if (!keys.contains(entry.getKey())) {
+                totalLevel -= Math.max(0, entry.getValue().getLevel(OVERALL));
+                totalXp -= Math.max(0, entry.getValue().getExperience(OVERALL));
+                it.remove();
+                removed = true;
+            }
+        }
+        if (!removed) {
+            return Collections.emptyList();
+        }
+
+        for (HiscoreSkill skill : AGGREGATED_SKILLS) {
+            String best = bestMembers[skill.ordinal()];
+            if (best != null && !members.containsKey(best)) {
+                findBest(skill);
+            }
+        }
+        // Every skill's gaps list the members, so they all change when a member leaves.
+        return AGGREGATED_SKILLS;
+    }
+
+    /**
+     * Returns whether there are no member stats in the aggregate.
+     */
+    boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    /**
+     * Returns the stats of every member in the aggregate.
+     */
+    Collection<PlayerStats> getMembers() {
+        return Collections.unmodifiableCollection(members.values());
+    }
+
+    /**
+     * Returns the member with the most XP in a skill, or null if no member is ranked in it.
+     */
+    PlayerStats getBest(HiscoreSkill skill) {
+        String best = bestMembers[skill.ordinal()];
+        return best == null ? null : members.get(best);
+    }
+
+    /**
+     * Returns how much less XP a member has in a skill than the best member, or -1 if the member isn't ranked in it.
+     */
+    long getGap(PlayerStats member, HiscoreSkill skill) {
+        long xp = member.getExperience(skill);
+        return xp < 0 ? -1 : bestXp[skill.ordinal()] - xp;
+    }
+
+    /**
+     * Returns the sum of the members' total levels.
+     */
+    long getTotalLevel() {
+        return totalLevel;
+    }
+
+    /**
+     * Returns the sum of the members' overall XP.
+     */
+    long getTotalXp() {
+        return totalXp;
+    }
+
+    private void findBest(HiscoreSkill skill) {
+        final int i = skill.ordinal();
+        bestXp[i] = -1;
+        bestMembers[i] = null;
+        for (Map.Entry<String, PlayerStats> entry : members.entrySet()) {
+            long xp = entry.getValue().getExperience(skill);
+            if (xp > bestXp[i]) {
+                bestXp[i] = xp;
+                bestMembers[i] = entry.getKey();
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.groupironpanel;
+
+import net.runelite.client.util.Text;
+
+import java.util.List;
+
+/**
+ * Works out which group member an in-game group or clan broadcast is about, e.g. "Player1 has reached Mining level 80."
+ * Broadcasts always start with the name of the player they concern.
+ */
+final class GroupBroadcastParser {
+    private GroupBroadcastParser() {
+    }
+
+    /**
+     * Returns the group member a broadcast is about.
+     *
+     * @param message      The broadcast, which may contain formatting tags.
+     * @param groupMembers The names of the group members.
+     * @return The member's name exactly as it appears in the group members, or null if the broadcast isn't about any
+     * of them.
+     */
+    static String findMember(String message, List<String> groupMembers) {
+        if (message == null || groupMembers.isEmpty()) {
+            return null;
+        }
+        final String text = Text.standardize(Text.removeTags(message));
+
+        // Names can contain spaces, so prefer the longest name that matches, e.g. "Bob Smith" over "Bob".
+        String member = null;
+        int memberLength = 0;
+        for (String groupMember : groupMembers) {
+            String name = Text.standardize(groupMember);
+            if (name.length() > memberLength && startsWithName(text, name)) {
+                member = groupMember;
+                memberLength = name.length();
+            }
+        }
+        return member;
+    }
+
+    private static boolean startsWithName(String text, String name) {
+        if (name.isEmpty() || !text.startsWith(name)) {
+            return false;
+        }
+        if (text.length() == name.length()) {
+            return true;
+        }
+        // The name must be followed by the rest of the sentence, not by more of a longer name.
+        char next = text.charAt(name.length());
+        return next == ' ' || next == '\'' || next == ':';
+    }
+}
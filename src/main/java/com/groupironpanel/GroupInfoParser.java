@@ -0,0 +1,78 @@
+package com.groupironpanel;
+
+import net.runelite.api.widgets.Widget;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the group name and members out of the widgets of the in-game group ironman tab.
+ */
+final class GroupInfoParser {
+    private static final Pattern GIM_USERNAME_PATTERN = Pattern.compile("^<.*>(.*)<.*>$");
+
+    private GroupInfoParser() {
+    }
+
+    /**
+     * Computes a cheap fingerprint of the raw widget contents, so that the widgets only need to be parsed when
+     * they have changed.
+     *
+     * @param groupNameWidgets   The children of the group name container widget.
+     * @param groupMemberWidgets The children of the group members container widget.
+     */
+    static int fingerprint(Widget[] groupNameWidgets, Widget[] groupMemberWidgets) {
+        int hash = 1;
+        if (groupNameWidgets != null) {
+            for (Widget child : groupNameWidgets) {
+                String text = child.getText();
+                hash = 31 * hash + (text == null ? 0 : text.hashCode());
+            }
+        }
+        if (groupMemberWidgets != null) {
+            for (Widget child : groupMemberWidgets) {
+                String name = child.getName();
+                hash = 31 * hash + (name == null ? 0 : name.hashCode());
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the group name shown in the group name widgets, or null if there is none.
+     */
+    static String parseGroupName(Widget[] groupNameWidgets) {
+        String groupName = null;
+        if (groupNameWidgets != null) {
+            for (Widget child : groupNameWidgets) {
+                String widgetText = child.getText();
+                if (widgetText != null && widgetText.length() > 0) {
+                    groupName = widgetText;
+                }
+            }
+        }
+        return groupName;
+    }
+
+    /**
+     * Returns the usernames of the group members shown in the group member widgets.
+     */
+    static List<String> parseGroupMembers(Widget[] groupMemberWidgets) {
+        List<String> groupMembers = new ArrayList<>();
+        if (groupMemberWidgets != null) {
+            for (Widget child : groupMemberWidgets) {
+                String widgetName = child.getName();
+                if (widgetName == null) {
+                    continue;
+                }
+                Matcher matcher = GIM_USERNAME_PATTERN.matcher(widgetName);
+                if (matcher.find()) {
+                    groupMembers.add(matcher.group(1));
+                }
+            }
+        }
+        return groupMembers;
+    }
+}
@@ -2,36 +2,110 @@ package com.groupironpanel;
 
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.hiscore.HiscoreEndpoint;
-import net.runelite.client.hiscore.HiscoreResult;
 import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
 import net.runelite.client.ui.PluginPanel;
-import net.runelite.client.util.ImageUtil;
-import net.runelite.client.hiscore.HiscoreClient;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class GroupIronPanel extends PluginPanel {
     private static final int GROUP_IRON_MAX_GROUP_SIZE = 5;
 
-    private HiscoreClient hiscoreClient;
+    private static final long LOOKUP_TIMEOUT_SECONDS = 15;
+
+    private static final int DIAGNOSTICS_REFRESH_MILLIS = 1000;
+
+    private HiscoreLookupGateway lookupGateway;
+
+    private ScheduledExecutorService executor;
+
+    private PanelMetrics metrics;
+
+    /**
+     * Incremented for every refresh, so that results from superseded refreshes can be recognised and dropped.
+     */
+    private final AtomicInteger refreshGeneration = new AtomicInteger();
+
+    private final List<CompletableFuture<PlayerStats>> pendingLookups = new ArrayList<>();
 
     private JLabel groupNameLabel;
 
-    private List<PlayerStatsPanel> playerStatsPanels;
+    private GroupSummaryPanel groupSummaryPanel;
+
+    private WatchlistPanel watchlistPanel;
+
+    /**
+     * The stats panels for the group members, created on demand to match the group size. Only accessed on the EDT.
+     */
+    private final List<PlayerStatsPanel> playerStatsPanels = new ArrayList<>();
+
+    /**
+     * The latest state of the group. Every change publishes a new immutable snapshot, which the EDT then renders.
+     */
+    private final AtomicReference<GroupState> state = new AtomicReference<>(GroupState.EMPTY);
+
+    /**
+     * Whether a render of the latest state has been queued on the EDT, so that bursts of updates are rendered once.
+     */
+    private final AtomicBoolean renderPending = new AtomicBoolean();
+
+    /**
+     * The state last rendered on the EDT. Only accessed on the EDT.
+     */
+    private GroupState renderedState = GroupState.EMPTY;
+
+    /**
+     * The group member who is logged in on this client, whose stats come from the client rather than the hiscores.
+     */
+    private volatile String localPlayer;
+
+    private volatile PlayerStats localStats;
 
-    public GroupIronPanel(HiscoreClient hiscoreClient) {
-        this.hiscoreClient = hiscoreClient;
+    private Runnable refreshAction = this::refreshPanel;
+
+    private Consumer<Boolean> activationListener = active -> {
+    };
+
+    private XpHistoryStore xpHistory;
+
+    private XpGainedPeriod xpGainedPeriod = XpGainedPeriod.OFF;
+
+    private boolean activitiesAvailable = true;
+
+    private JPanel diagnosticsPanel;
+
+    private JTextArea diagnosticsText;
+
+    private Timer diagnosticsTimer;
+
+    private boolean active;
+
+    public GroupIronPanel(HiscoreLookupGateway lookupGateway, ScheduledExecutorService executor, PanelMetrics metrics) {
+        this.lookupGateway = lookupGateway;
+        this.executor = executor;
+        this.metrics = metrics;
         rebuild();
     }
 
@@ -49,26 +123,84 @@ public class GroupIronPanel extends PluginPanel {
         groupNameLabel.setFont(new Font(groupNameLabel.getFont().getName(), Font.BOLD, 18));
         groupNamePanel.add(groupNameLabel);
 
-        final BufferedImage refreshIcon = ImageUtil.loadImageResource(getClass(), "/Refresh.png");
         JLabel refreshButton = new JLabel();
-        refreshButton.setIcon(new ImageIcon(refreshIcon));
+        refreshButton.setIcon(SkillIconCache.getRefreshIcon());
         refreshButton.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
                 super.mouseClicked(e);
-                refreshPanel();
+                refreshAction.run();
             }
         });
         groupNamePanel.add(refreshButton);
 
         add(groupNamePanel);
 
-        playerStatsPanels = new ArrayList<>();
-        for (int i = 0; i < GROUP_IRON_MAX_GROUP_SIZE; i++) {
-            PlayerStatsPanel statsPanel = new PlayerStatsPanel(hiscoreClient);
-            statsPanel.setBorder(new EmptyBorder(5, 0, 5, 0));
-            playerStatsPanels.add(statsPanel);
-            add(statsPanel);
+        groupSummaryPanel = new GroupSummaryPanel();
+        add(groupSummaryPanel);
+
+        watchlistPanel = new WatchlistPanel(player -> lookupPlayerStats(player, false));
+        add(watchlistPanel);
+
+        diagnosticsPanel = new JPanel(new BorderLayout(0, 5));
+        diagnosticsPanel.setBorder(new EmptyBorder(5, 0, 5, 0));
+        diagnosticsPanel.setVisible(false);
+
+        diagnosticsText = new JTextArea();
+        diagnosticsText.setEditable(false);
+        diagnosticsText.setLineWrap(true);
+        diagnosticsText.setFont(FontManager.getRunescapeSmallFont());
+        diagnosticsText.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        diagnosticsText.setBorder(new EmptyBorder(5, 5, 5, 5));
+        diagnosticsPanel.add(diagnosticsText, BorderLayout.CENTER);
+
+        JButton dumpButton = new JButton("Dump to log");
+        dumpButton.addActionListener(e -> log.info("Group Iron Panel diagnostics:\n{}", metrics.format()));
+        diagnosticsPanel.add(dumpButton, BorderLayout.SOUTH);
+
+        add(diagnosticsPanel);
+
+        diagnosticsTimer = new Timer(DIAGNOSTICS_REFRESH_MILLIS, e -> diagnosticsText.setText(metrics.format()));
+
+        playerStatsPanels.clear();
+    }
+
+    @Override
+    public void onActivate() {
+        active = true;
+        updateDiagnosticsTimer();
+        activationListener.accept(true);
+    }
+
+    @Override
+    public void onDeactivate() {
+        active = false;
+        updateDiagnosticsTimer();
+        activationListener.accept(false);
+    }
+
+    /**
+     * Shows or hides the diagnostics section at the bottom of the panel.
+     * This must be called on the EDT.
+     *
+     * @param visible Whether the diagnostics are shown.
+     */
+    public void setDiagnosticsVisible(boolean visible) {
+        diagnosticsPanel.setVisible(visible);
+        updateDiagnosticsTimer();
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Updates the diagnostics text once a second, but only while the diagnostics can actually be seen.
+     */
+    private void updateDiagnosticsTimer() {
+        if (active && diagnosticsPanel.isVisible()) {
+            diagnosticsText.setText(metrics.format());
+            diagnosticsTimer.start();
+        } else {
+            diagnosticsTimer.stop();
         }
     }
 
@@ -78,7 +210,7 @@ public class GroupIronPanel extends PluginPanel {
      * @param groupName The Group Ironman group name.
      */
     public void setGroupName(String groupName) {
-        groupNameLabel.setText(groupName);
+        publish(current -> current.withGroupName(groupName));
     }
 
     /**
@@ -87,50 +219,397 @@ public class GroupIronPanel extends PluginPanel {
      * @param groupMembers The usernames of the group members.
      */
     public void setGroupMembers(List<String> groupMembers) {
-        int i = 0;
-        while (i < groupMembers.size()) {
-            playerStatsPanels.get(i).setPlayer(groupMembers.get(i));
-            i++;
+        List<String> members = groupMembers.stream()
+                .filter(member -> !member.isEmpty())
+                .limit(GROUP_IRON_MAX_GROUP_SIZE)
+                .collect(Collectors.toList());
+        final String member = localPlayer;
+        final PlayerStats playerStats = localStats;
+        // Local stats that arrived before the member was in the group were dropped, so fill them in now.
+        publish(current -> withLocalStats(current.withMembers(members), member, playerStats));
+    }
+
+    /**
+     * Returns the latest state of the group, which may not have been rendered yet.
+     */
+    public GroupState getState() {
+        return state.get();
+    }
+
+    /**
+     * Publishes a new state of the group and queues a render of it on the EDT, unless one is already queued.
+     * Updates are applied atomically, so concurrent updates from different threads are never lost.
+     */
+    private void publish(UnaryOperator<GroupState> update) {
+        GroupState previous = state.get();
+        if (state.updateAndGet(update) != previous && renderPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::render);
+        }
+    }
+
+    /**
+     * Renders the latest state of the group, only touching what changed since the last render.
+     */
+    private void render() {
+        renderPending.set(false);
+        final GroupState current = state.get();
+        final GroupState previous = renderedState;
+        if (current == previous) {
+            return;
+        }
+        renderedState = current;
+        long start = metrics.startTimer();
+
+        if (!current.getGroupName().equals(previous.getGroupName())) {
+            groupNameLabel.setText(current.getGroupName());
+        }
+
+        final boolean membersChanged = !current.getMembers().equals(previous.getMembers());
+        if (membersChanged) {
+            updateMemberPanels(current.getMembers());
+        }
+
+        for (PlayerStatsPanel statsPanel : playerStatsPanels) {
+            GroupState.MemberState memberState = current.getMember(statsPanel.getPlayer());
+            if (memberState != null && (membersChanged || memberState != previous.getMember(statsPanel.getPlayer()))) {
+                renderMember(statsPanel, memberState);
+            }
+        }
+
+        metrics.recordEdtUpdate(start);
+    }
+
+    private void renderMember(PlayerStatsPanel statsPanel, GroupState.MemberState memberState) {
+        PlayerStats playerStats = memberState.getStats();
+        if (playerStats != null && playerStats != statsPanel.getStats()) {
+            if (memberState.isCached()) {
+                statsPanel.showCachedStats(playerStats, memberState.getLevels());
+            } else {
+                statsPanel.updateStats(playerStats, memberState.getLevels());
+            }
+            groupSummaryPanel.updateMember(statsPanel.getStats());
+        }
+        if (memberState.getFailure() != null) {
+            statsPanel.showLookupFailed(memberState.getFailure());
+        }
+    }
+
+    /**
+     * Creates or removes stats panels so that there is exactly one for each group member.
+     */
+    private void updateMemberPanels(List<String> members) {
+        while (playerStatsPanels.size() < members.size()) {
+            PlayerStatsPanel statsPanel = new PlayerStatsPanel();
+            statsPanel.setBorder(new EmptyBorder(5, 0, 5, 0));
+            statsPanel.setXpGainedView(xpHistory, xpGainedPeriod);
+            statsPanel.setActivitiesAvailable(activitiesAvailable);
+            // Keep the member panels above the watchlist and the diagnostics.
+            add(statsPanel, getComponentZOrder(watchlistPanel));
+            playerStatsPanels.add(statsPanel);
+        }
+        while (playerStatsPanels.size() > members.size()) {
+            remove(playerStatsPanels.remove(playerStatsPanels.size() - 1));
+        }
+
+        groupSummaryPanel.setGroupMembers(members);
+        for (int i = 0; i < members.size(); i++) {
+            playerStatsPanels.get(i).setPlayer(members.get(i));
+        }
+
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Sets the other groups and players to show in the watchlist below the group.
+     * This must be called on the EDT.
+     *
+     * @param watchlist The watchlist, one group per line written as "Group name: player1, player2".
+     */
+    public void setWatchlist(String watchlist) {
+        watchlistPanel.setWatchlist(watchlist);
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Shows previously stored hiscores for the group members until fresh hiscores have been fetched.
+     *
+     * @param snapshots The stored hiscores, keyed by the standardized player name.
+     */
+    public void showCachedStats(Map<String, PlayerStats> snapshots) {
+        publish(current -> current.withSnapshots(snapshots));
+    }
+
+    /**
+     * Switches the member panels between showing levels and showing the XP gained over a period.
+     * This must be called on the EDT.
+     *
+     * @param xpHistory      The history to read the XP gained from.
+     * @param xpGainedPeriod The period to show the XP gained over, or {@link XpGainedPeriod#OFF} to show levels.
+     */
+    public void setXpGainedView(XpHistoryStore xpHistory, XpGainedPeriod xpGainedPeriod) {
+        this.xpHistory = xpHistory;
+        this.xpGainedPeriod = xpGainedPeriod;
+        for (PlayerStatsPanel statsPanel : playerStatsPanels) {
+            statsPanel.setXpGainedView(xpHistory, xpGainedPeriod);
         }
-        while (i < GROUP_IRON_MAX_GROUP_SIZE) {
-            playerStatsPanels.get(i).setPlayer(null);
-            i++;
+    }
+
+    /**
+     * Sets whether the hiscore lookups include bosses and activities, which Lightweight Lookups leave out. The bosses
+     * and activities sections are hidden while they don't.
+     * This must be called on the EDT.
+     *
+     * @param available Whether bosses and activities are being looked up.
+     */
+    public void setActivitiesAvailable(boolean available) {
+        activitiesAvailable = available;
+        for (PlayerStatsPanel statsPanel : playerStatsPanels) {
+            statsPanel.setActivitiesAvailable(available);
+        }
+        watchlistPanel.setActivitiesAvailable(available);
+    }
+
+    /**
+     * Re-reads the XP gained from the history after new entries have been recorded.
+     * This must be called on the EDT.
+     */
+    public void refreshXpGained() {
+        if (xpGainedPeriod == XpGainedPeriod.OFF) {
+            return;
+        }
+        for (PlayerStatsPanel statsPanel : playerStatsPanels) {
+            statsPanel.refreshXpGained();
+        }
+    }
+
+    /**
+     * Sets the action to run when the refresh button is clicked.
+     *
+     * @param refreshAction The action that refreshes the panel.
+     */
+    public void setRefreshAction(Runnable refreshAction) {
+        this.refreshAction = refreshAction;
+    }
+
+    /**
+     * Sets the listener that is told when the panel is shown or hidden in the sidebar.
+     *
+     * @param activationListener Called on the EDT with true when the panel is shown and false when it is hidden.
+     */
+    public void setActivationListener(Consumer<Boolean> activationListener) {
+        this.activationListener = activationListener;
+    }
+
+    /**
+     * Cancels every lookup the panel is waiting on and stops its timers, so that nothing still running holds on to
+     * the panel once the plugin has stopped. Results that arrive afterwards are dropped.
+     * This must be called on the EDT.
+     */
+    public void shutDown() {
+        refreshGeneration.incrementAndGet();
+        synchronized (pendingLookups) {
+            for (CompletableFuture<PlayerStats> pendingLookup : pendingLookups) {
+                pendingLookup.cancel(false);
+            }
+            pendingLookups.clear();
         }
+
+        active = false;
+        diagnosticsTimer.stop();
+        watchlistPanel.shutDown();
+        refreshAction = () -> {
+        };
+        activationListener = active -> {
+        };
+        xpHistory = null;
+        xpGainedPeriod = XpGainedPeriod.OFF;
     }
 
     /**
      * Refreshes the hiscores for the group and displays them in the panel.
+     * Each member's stats are shown as soon as their own lookup finishes, and the stats currently shown are kept
+     * until then. Starting a refresh supersedes any refresh that is still in flight.
+     *
+     * @return A future that completes with the freshly fetched hiscores once the lookups for the group have finished.
      */
-    public void refreshPanel() {
-        for (PlayerStatsPanel panel : playerStatsPanels) {
-            panel.clearStats();
+    public CompletableFuture<List<PlayerStats>> refreshPanel() {
+        final int generation = refreshGeneration.incrementAndGet();
+
+        List<CompletableFuture<PlayerStats>> lookups = new ArrayList<>();
+        for (String member : state.get().getMembers()) {
+            if (member.equals(localPlayer)) {
+                lookups.add(showLocalStats(member));
+            } else {
+                lookups.add(lookupAndShow(member, generation, false));
+            }
+        }
+
+        synchronized (pendingLookups) {
+            for (CompletableFuture<PlayerStats> pendingLookup : pendingLookups) {
+                pendingLookup.cancel(false);
+            }
+            pendingLookups.clear();
+            pendingLookups.addAll(lookups);
         }
 
-        List<CompletableFuture<HiscoreResult>> hiscoreFutures = playerStatsPanels
-                .stream()
-                .map(panel -> hiscoreClient.lookupAsync(panel.getPlayer(), HiscoreEndpoint.NORMAL))
+        List<CompletableFuture<PlayerStats>> settledLookups = lookups.stream()
+                .map(lookup -> lookup.handle((playerStats, ex) -> playerStats))
                 .collect(Collectors.toList());
+        return CompletableFuture.allOf(settledLookups.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> settledLookups.stream()
+                        .map(CompletableFuture::join)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Refreshes the hiscores for a single group member and displays them in the panel.
+     * The lookup is superseded by the next full refresh of the panel.
+     *
+     * @param member The name of the group member.
+     * @return A future that completes with the fetched hiscores, or exceptionally if the lookup failed.
+     */
+    public CompletableFuture<PlayerStats> refreshMember(String member) {
+        return refreshMember(member, false);
+    }
 
-        CompletableFuture.allOf(hiscoreFutures.toArray(new CompletableFuture<?>[0])).whenCompleteAsync((result, ex) -> {
-            List<HiscoreResult> results = hiscoreFutures.stream().map(future -> {
-                try {
-                    return future.get();
-                } catch (InterruptedException e) {
-                    return null;
-                } catch (ExecutionException e) {
-                    return null;
-                }
-            }).collect(Collectors.toList());
-
-            SwingUtilities.invokeLater(() -> {
-                for (int i = 0; i < playerStatsPanels.size(); i++) {
-                    HiscoreResult hiscoreResult = results.get(i);
-                    if (hiscoreResult == null) {
-                        continue;
-                    }
-                    playerStatsPanels.get(i).updateStats(hiscoreResult);
-                }
-            });
+    /**
+     * Refreshes the hiscores for a single group member and displays them in the panel.
+     * The lookup is superseded by the next full refresh of the panel.
+     *
+     * @param member The name of the group member.
+     * @param fresh  Whether the hiscores must be fetched from the hiscores, rather than from a cached result, because
+     *               the member's stats are known to have changed.
+     * @return A future that completes with the fetched hiscores, or exceptionally if the lookup failed.
+     */
+    public CompletableFuture<PlayerStats> refreshMember(String member, boolean fresh) {
+        if (member.equals(localPlayer)) {
+            return showLocalStats(member);
+        }
+
+        CompletableFuture<PlayerStats> lookup = lookupAndShow(member, refreshGeneration.get(), fresh);
+        synchronized (pendingLookups) {
+            pendingLookups.removeIf(CompletableFuture::isDone);
+            pendingLookups.add(lookup);
+        }
+        return lookup;
+    }
+
+    /**
+     * Sets the group member who is logged in on this client. Their stats are no longer looked up on the hiscores,
+     * and are instead provided through {@link #updateLocalStats(PlayerStats)}.
+     *
+     * @param member The name of the group member exactly as configured, or null if no group member is logged in.
+     */
+    public void setLocalPlayer(String member) {
+        if (!Objects.equals(localPlayer, member)) {
+            localPlayer = member;
+            localStats = null;
+        }
+    }
+
+    /**
+     * Shows the live stats of the group member who is logged in on this client.
+     *
+     * @param playerStats The stats, as tracked by the client.
+     */
+    public void updateLocalStats(PlayerStats playerStats) {
+        final String member = localPlayer;
+        if (member == null) {
+            return;
+        }
+        localStats = playerStats;
+        publish(current -> current.withStats(member, playerStats));
+    }
+
+    /**
+     * Shows the live stats of the group member who is logged in on this client, if there are any yet, in place of a
+     * lookup for them.
+     */
+    private CompletableFuture<PlayerStats> showLocalStats(String member) {
+        final PlayerStats playerStats = localStats;
+        publish(current -> withLocalStats(current, member, playerStats));
+        return CompletableFuture.completedFuture(playerStats);
+    }
+
+    /**
+     * Returns the state with the local member's live stats, or the same state if there are none or they are already
+     * shown.
+     */
+    private static GroupState withLocalStats(GroupState state, String member, PlayerStats playerStats) {
+        if (member == null || playerStats == null) {
+            return state;
+        }
+        GroupState.MemberState memberState = state.getMember(member);
+        if (memberState != null && memberState.getStats() == playerStats) {
+            return state;
+        }
+        return state.withStats(member, playerStats);
+    }
+
+    /**
+     * Returns the group members currently shown in the panel.
+     */
+    public List<String> getGroupMembers() {
+        return state.get().getMembers();
+    }
+
+    /**
+     * Looks up the hiscores for a group member and shows them in the member's stats panel as soon as they arrive,
+     * unless a newer refresh has been started in the meantime.
+     */
+    private CompletableFuture<PlayerStats> lookupAndShow(String member, int generation, boolean fresh) {
+        final long lookupStart = metrics.startTimer();
+        CompletableFuture<PlayerStats> lookup = lookupPlayerStats(member, fresh);
+        lookup.whenComplete((playerStats, ex) -> {
+            recordLookup(member, playerStats, ex, lookupStart);
+            if (generation == refreshGeneration.get()) {
+                publish(current -> withLookupResult(current, member, playerStats, ex));
+            }
         });
+        return lookup;
+    }
+
+    private static GroupState withLookupResult(GroupState current, String member, PlayerStats playerStats, Throwable ex) {
+        if (playerStats != null) {
+            return current.withStats(member, playerStats);
+        } else if (ex == null) {
+            return current.withLookupFailed(member, "Not found on the hiscores");
+        } else if (unwrap(ex) instanceof TimeoutException) {
+            return current.withLookupFailed(member, "Hiscore lookup timed out");
+        } else if (!(unwrap(ex) instanceof CancellationException)) {
+            return current.withLookupFailed(member, "Hiscore lookup failed");
+        }
+        return current;
+    }
+
+    private void recordLookup(String member, PlayerStats playerStats, Throwable ex, long lookupStart) {
+        if (ex == null && playerStats == null) {
+            metrics.recordLookup(member, PanelMetrics.LookupOutcome.NOT_FOUND, lookupStart);
+        } else if (ex == null) {
+            metrics.recordLookup(member, PanelMetrics.LookupOutcome.SUCCESS, lookupStart);
+        } else if (unwrap(ex) instanceof TimeoutException) {
+            metrics.recordLookup(member, PanelMetrics.LookupOutcome.TIMEOUT, lookupStart);
+        } else if (!(unwrap(ex) instanceof CancellationException)) {
+            metrics.recordLookup(member, PanelMetrics.LookupOutcome.FAILURE, lookupStart);
+        }
+    }
+
+    /**
+     * Looks up the hiscores for a single player, failing with a {@link TimeoutException} if the lookup takes too long.
+     */
+    private CompletableFuture<PlayerStats> lookupPlayerStats(String player, boolean fresh) {
+        CompletableFuture<PlayerStats> lookup = lookupGateway.lookup(player, HiscoreEndpoint.NORMAL, fresh);
+
+        ScheduledFuture<?> timeout = executor.schedule(
+                () -> lookup.completeExceptionally(new TimeoutException()), LOOKUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        lookup.whenComplete((playerStats, ex) -> timeout.cancel(false));
+        return lookup;
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
     }
 }
@@ -3,6 +3,8 @@ package com.groupironpanel;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
+import net.runelite.client.config.Range;
+import net.runelite.client.config.Units;
 
 @ConfigGroup("groupironpanel")
 public interface GroupIronPanelConfig extends Config {
@@ -49,4 +51,77 @@ public interface GroupIronPanelConfig extends Config {
             description = ""
     )
     void setGroupMembers(String key);
+
+    @ConfigItem(
+            keyName = "autoRefresh",
+            name = "Auto-Refresh",
+            description = "Whether the hiscores should be refreshed periodically while the panel is open",
+            position = 3
+    )
+    default boolean autoRefresh() {
+        return false;
+    }
+
+    @Range(min = 1)
+    @Units(Units.MINUTES)
+    @ConfigItem(
+            keyName = "autoRefreshInterval",
+            name = "Auto-Refresh Interval",
+            description = "How often each group member's hiscores are refreshed when Auto-Refresh is enabled. Members whose XP hasn't changed in a while, or whose lookups are failing, are refreshed less often",
+            position = 4
+    )
+    default int autoRefreshInterval() {
+        return 10;
+    }
+
+    @Range(min = 1, max = 5)
+    @ConfigItem(
+            keyName = "maxConcurrentLookups",
+            name = "Max Concurrent Lookups",
+            description = "The maximum number of hiscore lookups that can be in flight at once",
+            position = 5
+    )
+    default int maxConcurrentLookups() {
+        return 3;
+    }
+
+    @ConfigItem(
+            keyName = "lightweightLookups",
+            name = "Lightweight Lookups",
+            description = "Reads only the skills from the hiscores' CSV endpoint, skipping the bosses and activities, which are then not shown",
+            position = 6
+    )
+    default boolean lightweightLookups() {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "xpGainedPeriod",
+            name = "Show XP Gained",
+            description = "Shows the XP each member gained over the chosen period instead of their levels. The XP is tracked from the hiscores while the plugin is running",
+            position = 7
+    )
+    default XpGainedPeriod xpGainedPeriod() {
+        return XpGainedPeriod.OFF;
+    }
+
+    @ConfigItem(
+            keyName = "watchlist",
+            name = "Watchlist",
+            description = "Other players to follow in a scrolling list below the group, one group per line written as 'Group name: player1, player2'. The group name can be left out",
+            position = 8
+    )
+    default String watchlist() {
+        return "";
+    }
+
+    @ConfigItem(
+            keyName = "showDiagnostics",
+            name = "Show Diagnostics",
+            description = "Records lookup latencies, refresh counts and UI update times, and shows them at the bottom of the panel",
+            position = 9
+    )
+    default boolean showDiagnostics() {
+        return false;
+    }
 }
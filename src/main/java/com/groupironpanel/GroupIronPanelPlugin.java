@@ -2,10 +2,23 @@ package com.groupironpanel;
 
 import com.google.inject.Provides;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
-import net.runelite.api.events.GameTick;
+import net.runelite.api.GameState;
+import net.runelite.api.Player;
+import net.runelite.api.ScriptEvent;
+import net.runelite.api.Skill;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.ScriptPreFired;
+import net.runelite.api.events.StatChanged;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.gameval.InterfaceID;
 import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetUtil;
+import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ConfigChanged;
@@ -19,13 +32,20 @@ import net.runelite.client.util.Text;
 import okhttp3.OkHttpClient;
 
 import javax.inject.Inject;
+import javax.inject.Named;
+import javax.swing.SwingUtilities;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @PluginDescriptor(
@@ -33,17 +53,77 @@ import java.util.regex.Pattern;
         description = "A panel that displays your Group Ironman group's skills and hiscores all in one place"
 )
 public class GroupIronPanelPlugin extends Plugin {
-    private static final Pattern GIM_USERNAME_PATTERN = Pattern.compile("^<.*>(.*)<.*>$");
+    /**
+     * The name of the binding for the directory the plugin keeps its files in.
+     */
+    static final String DATA_DIRECTORY = "groupIronPanelDataDirectory";
+
+    private static final String SNAPSHOT_FILE_NAME = "hiscore-snapshots.dat";
+
+    private static final String XP_HISTORY_FILE_NAME = "xp-history.dat";
+
+    private static final String XP_HISTORY_ARCHIVE_FILE_NAME = "xp-history-archive.dat";
+
+    private static final String HTTP_CACHE_DIRECTORY_NAME = "http-cache";
+
+    private static final String SHARED_CACHE_FILE_NAME = "shared-hiscores.dat";
+
+    /**
+     * Whether the group ironman tab is currently loaded. Auto-detection does no work at all while it isn't.
+     */
+    private boolean groupTabLoaded;
+
+    private boolean autoDetectPending;
+
+    private int lastGroupFingerprint;
+
+    private volatile GroupIronPanel panel;
+
+    private HiscoreLookupGateway lookupGateway;
+
+    private HiscoreHttpCache httpCache;
+
+    private StreamingHiscoreClient streamingClient;
+
+    private SharedHiscoreCache sharedCache;
+
+    private volatile PanelMetrics metrics;
+
+    private volatile GroupRefreshScheduler refreshScheduler;
 
-    private int autoDetectTickCooldown = 0;
+    private AutoRefresher autoRefresher;
 
-    private GroupIronPanel panel;
+    private volatile HiscoreSnapshotStore snapshotStore;
+
+    private volatile XpHistoryStore xpHistory;
+
+    /**
+     * The most recent hiscores of each group member, keyed by the standardized player name.
+     * Only written from the executor thread.
+     */
+    private final Map<String, PlayerStats> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Tracks the stats of the logged in player if they are in the group. Only accessed from the client thread.
+     */
+    private final LocalPlayerStatsTracker localStatsTracker = new LocalPlayerStatsTracker();
+
+    private boolean localStatsPublishPending;
+
+    /**
+     * Whether the logged in player's name was known the last time they were checked against the group members, so
+     * that stat changes don't check again until the config or game state changes. Only accessed from the client thread.
+     */
+    private boolean localPlayerChecked;
 
     private NavigationButton toolbarButton;
 
     @Inject
     private Client client;
 
+    @Inject
+    private ClientThread clientThread;
+
     @Inject
     private ScheduledExecutorService executor;
 
@@ -57,23 +137,73 @@ public class GroupIronPanelPlugin extends Plugin {
     private GroupIronPanelConfig config;
 
     @Inject
-    private HiscoreClient hiscoreClient;
+    @Named(DATA_DIRECTORY)
+    private File dataDirectory;
 
     @Provides
     GroupIronPanelConfig provideConfig(ConfigManager configManager) {
         return configManager.getConfig(GroupIronPanelConfig.class);
     }
 
+    @Provides
+    @Named(DATA_DIRECTORY)
+    File provideDataDirectory() {
+        return new File(RuneLite.RUNELITE_DIR, "groupironpanel");
+    }
+
     @Subscribe
     public void onConfigChanged(ConfigChanged event) {
         if (event.getGroup().equals("groupironpanel")) {
-            executor.execute(this::updatePanel);
+            lookupGateway.setMaxConcurrentLookups(config.maxConcurrentLookups());
+            lookupGateway.setStreamingClient(config.lightweightLookups() ? streamingClient : null);
+            refreshScheduler.requestRefresh();
+            autoRefresher.reschedule();
+            clientThread.invokeLater(this::updateLocalPlayer);
+            final GroupIronPanel panel = this.panel;
+            if ("xpGainedPeriod".equals(event.getKey())) {
+                final XpHistoryStore xpHistory = this.xpHistory;
+                SwingUtilities.invokeLater(() -> panel.setXpGainedView(xpHistory, config.xpGainedPeriod()));
+            }
+            if ("lightweightLookups".equals(event.getKey())) {
+                SwingUtilities.invokeLater(() -> panel.setActivitiesAvailable(!config.lightweightLookups()));
+            }
+            if ("watchlist".equals(event.getKey())) {
+                SwingUtilities.invokeLater(() -> panel.setWatchlist(config.watchlist()));
+            }
+            if ("showDiagnostics".equals(event.getKey())) {
+                metrics.setEnabled(config.showDiagnostics());
+                SwingUtilities.invokeLater(() -> panel.setDiagnosticsVisible(config.showDiagnostics()));
+            }
         }
     }
 
     @Override
     protected void startUp() throws Exception {
-        panel = new GroupIronPanel(hiscoreClient);
+        final long startTime = System.nanoTime();
+        final long startHeap = usedHeap();
+
+        httpCache = new HiscoreHttpCache(okHttpClient, new File(dataDirectory, HTTP_CACHE_DIRECTORY_NAME));
+        lookupGateway = new HiscoreLookupGateway(new HiscoreClient(httpCache.getClient()), config.maxConcurrentLookups());
+        lookupGateway.setFreshHiscoreClient(new HiscoreClient(httpCache.getFreshClient()));
+        streamingClient = new StreamingHiscoreClient(httpCache.getClient());
+        lookupGateway.setStreamingClient(config.lightweightLookups() ? streamingClient : null);
+        sharedCache = new SharedHiscoreCache(new File(dataDirectory, SHARED_CACHE_FILE_NAME), executor);
+        lookupGateway.setSharedCache(sharedCache);
+        metrics = new PanelMetrics(lookupGateway);
+        metrics.setHttpCache(httpCache);
+        metrics.setSharedCache(sharedCache);
+        metrics.setEnabled(config.showDiagnostics());
+        panel = new GroupIronPanel(lookupGateway, executor, metrics);
+        panel.setDiagnosticsVisible(config.showDiagnostics());
+        panel.setWatchlist(config.watchlist());
+        panel.setActivitiesAvailable(!config.lightweightLookups());
+        refreshScheduler = new GroupRefreshScheduler(executor, config, panel, this::onStatsRefreshed, metrics);
+        panel.setRefreshAction(() -> refreshScheduler.forceRefresh(PanelMetrics.RefreshSource.MANUAL));
+        autoRefresher = new AutoRefresher(executor, config, panel, this::onStatsRefreshed, metrics);
+        panel.setActivationListener(active -> {
+            refreshScheduler.setPanelActive(active);
+            autoRefresher.setPanelActive(active);
+        });
         final BufferedImage icon = ImageUtil.loadImageResource(getClass(), "/GroupIron.png");
         toolbarButton = NavigationButton.builder()
                 .tooltip("Group Iron")
@@ -83,75 +213,339 @@ public class GroupIronPanelPlugin extends Plugin {
                 .build();
 
         clientToolbar.addNavigation(toolbarButton);
-        updatePanel();
+
+        snapshotStore = new HiscoreSnapshotStore(new File(dataDirectory, SNAPSHOT_FILE_NAME));
+        xpHistory = new XpHistoryStore(new File(dataDirectory, XP_HISTORY_FILE_NAME), new File(dataDirectory, XP_HISTORY_ARCHIVE_FILE_NAME));
+        panel.setXpGainedView(xpHistory, config.xpGainedPeriod());
+        executor.execute(this::loadSnapshots);
+        executor.execute(this::loadXpHistory);
+        // The player may already be logged in, in which case no login event will tell us who they are.
+        clientThread.invokeLater(this::updateLocalPlayer);
+        refreshScheduler.forceRefresh(PanelMetrics.RefreshSource.STARTUP);
+
+        log.debug("Started in {} ms, using about {} KB of heap",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), (usedHeap() - startHeap) / 1024);
     }
 
     @Override
     protected void shutDown() throws Exception {
+        refreshScheduler.shutDown();
+        autoRefresher.shutDown();
+        panel.shutDown();
+        lookupGateway.shutDown();
+        sharedCache.close();
+        httpCache.close();
         clientToolbar.removeNavigation(toolbarButton);
+
+        // Drop everything the plugin created, so that nothing outlives it if the plugin stays stopped. Callbacks that
+        // were already queued check for this and do nothing.
+        panel = null;
+        toolbarButton = null;
+        lookupGateway = null;
+        httpCache = null;
+        streamingClient = null;
+        sharedCache = null;
+        metrics = null;
+        refreshScheduler = null;
+        autoRefresher = null;
+        snapshotStore = null;
+        xpHistory = null;
+        executor.execute(snapshots::clear);
+        clientThread.invokeLater(() -> {
+            localStatsTracker.reset(null, null);
+            autoDetectPending = false;
+            localStatsPublishPending = false;
+            localPlayerChecked = false;
+        });
+        SkillIconCache.clear();
     }
 
     @Subscribe
-    private void onGameTick(GameTick gameTick) throws IOException {
-        if (config.autoDetectGroup()) {
-            // The group info won't actually change very often, so no need to spend time checking it every tick.
-            if (autoDetectTickCooldown == 0) {
-                tryAutoDetectGroupInformation();
-                autoDetectTickCooldown = 5;
-            } else if (autoDetectTickCooldown > 0) {
-                autoDetectTickCooldown--;
-            }
+    public void onGameStateChanged(GameStateChanged event) {
+        if (event.getGameState() == GameState.LOGGED_IN || event.getGameState() == GameState.LOGIN_SCREEN) {
+            updateLocalPlayer();
+        }
+    }
+
+    @Subscribe
+    public void onStatChanged(StatChanged event) {
+        if (!localPlayerChecked) {
+            // The local player's name isn't always known yet when the first stats arrive after logging in.
+            updateLocalPlayer();
+        }
+        if (localStatsTracker.update(event.getSkill(), event.getLevel(), event.getXp())) {
+            publishLocalStats();
         }
     }
 
     /**
-     * Tries to auto-detect the group name and members.
-     * This will only succeed if the group ironman tab is open.
+     * Works out whether the logged in player is one of the configured group members, and if so starts tracking their
+     * stats from the client instead of looking them up on the hiscores.
      */
-    private void tryAutoDetectGroupInformation() {
-        Widget groupNameContainerWidget = client.getWidget(InterfaceID.GIM_SIDEPANEL, 1);
-        if (groupNameContainerWidget == null) {
+    private void updateLocalPlayer() {
+        final GroupIronPanel panel = this.panel;
+        if (panel == null) {
             return;
         }
-        Widget[] groupNameWidgets = groupNameContainerWidget.getChildren();
-        String groupName = null;
-        if (groupNameWidgets != null) {
-            for (Widget child : groupNameWidgets) {
-                String widgetText = child.getText();
-                if (widgetText != null && widgetText.length() > 0) {
-                    groupName = widgetText;
+
+        Player localPlayer = client.getGameState() == GameState.LOGGED_IN ? client.getLocalPlayer() : null;
+        String localName = localPlayer == null ? null : localPlayer.getName();
+        localPlayerChecked = localName != null;
+
+        String localMember = null;
+        if (localName != null) {
+            String standardizedName = Text.standardize(localName);
+            for (String member : Text.fromCSV(config.groupMembers())) {
+                if (Text.standardize(member).equals(standardizedName)) {
+                    localMember = member;
+                    break;
                 }
             }
         }
 
+        if (Objects.equals(localMember, localStatsTracker.getPlayer())) {
+            return;
+        }
+        panel.setLocalPlayer(localMember);
+        if (localMember == null) {
+            localStatsTracker.reset(null, null);
+            return;
+        }
+
+        localStatsTracker.reset(localMember, snapshots.get(Text.standardize(localMember)));
+        for (Skill skill : Skill.values()) {
+            if (!LocalPlayerStatsTracker.isTracked(skill)) {
+                continue;
+            }
+            localStatsTracker.update(skill, client.getRealSkillLevel(skill), client.getSkillExperience(skill));
+        }
+        publishLocalStats();
+    }
+
+    /**
+     * Publishes the local player's stats to the panel at the end of the client frame, so that a burst of stat
+     * changes only updates the panel once.
+     */
+    private void publishLocalStats() {
+        if (localStatsPublishPending) {
+            return;
+        }
+        localStatsPublishPending = true;
+        clientThread.invokeLater(() -> {
+            localStatsPublishPending = false;
+            final GroupIronPanel panel = this.panel;
+            if (panel != null && localStatsTracker.getPlayer() != null) {
+                panel.updateLocalStats(localStatsTracker.snapshot(System.currentTimeMillis()));
+            }
+        });
+    }
+
+    @Subscribe
+    public void onChatMessage(ChatMessage event) {
+        if (event.getType() != ChatMessageType.CLAN_GIM_MESSAGE && event.getType() != ChatMessageType.CLAN_MESSAGE) {
+            return;
+        }
+        final GroupIronPanel panel = this.panel;
+        final GroupRefreshScheduler refreshScheduler = this.refreshScheduler;
+        if (panel == null || refreshScheduler == null) {
+            return;
+        }
+
+        // Level ups, milestones and drops are broadcast to the group, so only the member they concern needs a refresh.
+        // The logged in member's stats are already live.
+        String member = GroupBroadcastParser.findMember(event.getMessage(), panel.getGroupMembers());
+        if (member != null && !member.equals(localStatsTracker.getPlayer())) {
+            refreshScheduler.requestMemberRefresh(member);
+        }
+    }
+
+    @Subscribe
+    public void onWidgetLoaded(WidgetLoaded event) {
+        if (event.getGroupId() == InterfaceID.GIM_SIDEPANEL) {
+            groupTabLoaded = true;
+            // Compare against the config again every time the tab is opened, in case it was edited by hand.
+            lastGroupFingerprint = 0;
+            scheduleAutoDetect();
+        }
+    }
+
+    @Subscribe
+    public void onWidgetClosed(WidgetClosed event) {
+        if (event.getGroupId() == InterfaceID.GIM_SIDEPANEL) {
+            groupTabLoaded = false;
+        }
+    }
+
+    @Subscribe
+    public void onScriptPreFired(ScriptPreFired event) {
+        // The group tab is updated by its own scripts while it is open. Scripts run for any other interface, which is
+        // most of them, can't change it. The scan runs at the end of the frame, after the script has finished.
+        if (groupTabLoaded && isGroupTabScript(event.getScriptEvent())) {
+            scheduleAutoDetect();
+        }
+    }
+
+    private static boolean isGroupTabScript(ScriptEvent scriptEvent) {
+        if (scriptEvent == null || scriptEvent.getSource() == null) {
+            return false;
+        }
+        return WidgetUtil.componentToInterface(scriptEvent.getSource().getId()) == InterfaceID.GIM_SIDEPANEL;
+    }
+
+    /**
+     * Schedules a single auto-detection pass for the end of the current client frame, coalescing every event that
+     * asked for one in the meantime.
+     */
+    private void scheduleAutoDetect() {
+        if (autoDetectPending || !config.autoDetectGroup()) {
+            return;
+        }
+        autoDetectPending = true;
+        clientThread.invokeLater(() -> {
+            autoDetectPending = false;
+            final PanelMetrics metrics = this.metrics;
+            if (metrics == null) {
+                return;
+            }
+            long start = metrics.startTimer();
+            tryAutoDetectGroupInformation();
+            metrics.recordAutoDetectScan(start);
+        });
+    }
+
+    /**
+     * Tries to auto-detect the group name and members.
+     * This will only succeed if the group ironman tab is open. The config is only written when the contents of the
+     * group tab have changed since the last time it was checked.
+     */
+    private void tryAutoDetectGroupInformation() {
+        Widget groupNameContainerWidget = client.getWidget(InterfaceID.GIM_SIDEPANEL, 1);
         Widget groupMembersContainerWidget = client.getWidget(InterfaceID.GIM_SIDEPANEL, 6);
-        if (groupMembersContainerWidget == null) {
+        if (groupNameContainerWidget == null || groupMembersContainerWidget == null) {
             return;
         }
+        Widget[] groupNameWidgets = groupNameContainerWidget.getChildren();
         Widget[] groupMemberWidgets = groupMembersContainerWidget.getChildren();
-        List<String> groupMembers = new ArrayList<>();
-        if (groupMemberWidgets != null) {
-            for (Widget child : groupMemberWidgets) {
-                String widgetName = child.getName();
-                Matcher matcher = GIM_USERNAME_PATTERN.matcher(widgetName);
-                if (matcher.find()) {
-                    groupMembers.add(matcher.group(1));
-                }
-            }
+
+        int fingerprint = GroupInfoParser.fingerprint(groupNameWidgets, groupMemberWidgets);
+        if (fingerprint == lastGroupFingerprint) {
+            return;
+        }
+        lastGroupFingerprint = fingerprint;
+
+        String groupName = GroupInfoParser.parseGroupName(groupNameWidgets);
+        List<String> groupMembers = GroupInfoParser.parseGroupMembers(groupMemberWidgets);
+        if (groupName == null || groupName.isEmpty() || groupMembers.isEmpty()) {
+            return;
         }
 
-        if (groupName != null && !groupName.isEmpty() && groupMembers.size() > 0) {
+        String groupMembersCsv = Text.toCSV(groupMembers);
+        if (!groupName.equals(config.groupName())) {
             config.setGroupName(groupName);
-            config.setGroupMembers(Text.toCSV(groupMembers));
         }
+        if (!groupMembersCsv.equals(config.groupMembers())) {
+            config.setGroupMembers(groupMembersCsv);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Loads the stored hiscores and shows them in the panel until fresh hiscores have been fetched.
+     */
+    private void loadSnapshots() {
+        final HiscoreSnapshotStore snapshotStore = this.snapshotStore;
+        final GroupIronPanel panel = this.panel;
+        if (snapshotStore == null || panel == null) {
+            return;
+        }
+
+        try {
+            snapshots.clear();
+            snapshots.putAll(snapshotStore.load());
+        } catch (IOException e) {
+            log.warn("Unable to load the stored hiscores", e);
+            return;
+        }
+
+        panel.showCachedStats(new HashMap<>(snapshots));
+    }
+
+    /**
+     * Loads the XP history and shows the XP gained from it if enabled.
+     */
+    private void loadXpHistory() {
+        final XpHistoryStore xpHistory = this.xpHistory;
+        final GroupIronPanel panel = this.panel;
+        if (xpHistory == null || panel == null) {
+            return;
+        }
+
+        try {
+            xpHistory.load();
+        } catch (IOException e) {
+            log.warn("Unable to load the XP history", e);
+            return;
+        }
+        SwingUtilities.invokeLater(panel::refreshXpGained);
     }
 
     /**
-     * Update the panel with the most up-to-date configuration.
+     * Stores freshly fetched hiscores for the group members and records them in the XP history.
+     *
+     * @param results The freshly fetched hiscores.
      */
-    private void updatePanel() {
-        panel.setGroupName(config.groupName());
-        panel.setGroupMembers(Text.fromCSV(config.groupMembers()));
-        panel.refreshPanel();
+    private void onStatsRefreshed(List<PlayerStats> results) {
+        saveSnapshots(results);
+        executor.execute(() -> {
+            final XpHistoryStore xpHistory = this.xpHistory;
+            final GroupIronPanel panel = this.panel;
+            if (xpHistory == null || panel == null) {
+                return;
+            }
+
+            for (PlayerStats stats : results) {
+                xpHistory.record(stats);
+            }
+            try {
+                xpHistory.save();
+            } catch (IOException e) {
+                log.warn("Unable to store the XP history", e);
+            }
+            SwingUtilities.invokeLater(panel::refreshXpGained);
+        });
+    }
+
+    /**
+     * Stores freshly fetched hiscores for the group members, replacing any previously stored hiscores.
+     *
+     * @param results The freshly fetched hiscores.
+     */
+    private void saveSnapshots(List<PlayerStats> results) {
+        executor.execute(() -> {
+            final HiscoreSnapshotStore snapshotStore = this.snapshotStore;
+            if (snapshotStore == null) {
+                return;
+            }
+
+            for (PlayerStats stats : results) {
+                snapshots.put(Text.standardize(stats.getPlayer()), stats);
+            }
+
+            Set<String> groupMembers = new HashSet<>();
+            for (String member : Text.fromCSV(config.groupMembers())) {
+                groupMembers.add(Text.standardize(member));
+            }
+            snapshots.keySet().retainAll(groupMembers);
+
+            try {
+                snapshotStore.save(snapshots.values());
+            } catch (IOException e) {
+                log.warn("Unable to store the group hiscores", e);
+            }
+        });
     }
 }
@@ -0,0 +1,231 @@
+package com.groupironpanel;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.util.Text;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Schedules refreshes of the group panel.
+ * Bursts of refresh requests are coalesced into a single refresh, refreshes are skipped when the group
+ * information has not changed, and only one refresh is ever in flight at a time since starting a refresh
+ * supersedes the one before it.
+ * Single members can also be refreshed on their own, e.g. when a broadcast shows that their stats changed.
+ * Hiscore lookups are deferred while the panel is hidden, and run as soon as it is shown.
+ */
+@Slf4j
+public class GroupRefreshScheduler {
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    /**
+     * How long to wait after a broadcast before refreshing the member it concerns. This gives the hiscores time to
+     * catch up, and folds the broadcasts that often arrive together, e.g. a level up and a new total level, into a
+     * single lookup.
+     */
+    private static final long MEMBER_REFRESH_DELAY_MILLIS = 5000;
+
+    private final ScheduledExecutorService executor;
+
+    private final GroupIronPanelConfig config;
+
+    private final GroupIronPanel panel;
+
+    private final Consumer<List<PlayerStats>> refreshListener;
+
+    private final PanelMetrics metrics;
+
+    private final Object lock = new Object();
+
+    private ScheduledFuture<?> pendingRefresh;
+
+    /**
+     * The single member refreshes that have not started yet, keyed by the member's name exactly as configured.
+     */
+    private final Map<String, ScheduledFuture<?>> pendingMemberRefreshes = new HashMap<>();
+
+    private boolean panelActive;
+
+    private boolean lookupsDeferred;
+
+    private String lastGroupName;
+
+    private List<String> lastGroupMembers;
+
+    /**
+     * @param refreshListener Called with the freshly fetched hiscores after each refresh.
+     * @param metrics         Counts the refreshes that are run.
+     */
+    public GroupRefreshScheduler(ScheduledExecutorService executor, GroupIronPanelConfig config, GroupIronPanel panel,
+                                 Consumer<List<PlayerStats>> refreshListener, PanelMetrics metrics) {
+        this.executor = executor;
+        this.config = config;
+        this.panel = panel;
+        this.refreshListener = refreshListener;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Requests a refresh of the panel after the configured group information has settled.
+     * The refresh is skipped if the group name and members are unchanged since the last refresh.
+     */
+    public void requestRefresh() {
+        synchronized (lock) {
+            if (pendingRefresh != null) {
+                pendingRefresh.cancel(false);
+            }
+            pendingRefresh = executor.schedule(() -> runRefresh(false, PanelMetrics.RefreshSource.CONFIG), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Refreshes the panel as soon as possible, even if the group information is unchanged.
+     *
+     * @param source What triggered the refresh.
+     */
+    public void forceRefresh(PanelMetrics.RefreshSource source) {
+        synchronized (lock) {
+            if (pendingRefresh != null) {
+                pendingRefresh.cancel(false);
+            }
+            pendingRefresh = null;
+        }
+        executor.execute(() -> runRefresh(true, source));
+    }
+
+    /**
+     * Requests a refresh of a single group member, once any other requests for them in the next few seconds have
+     * settled. If the panel is hidden, the whole group is refreshed once it is shown instead.
+     *
+     * @param member The name of the group member exactly as configured.
+     */
+    public void requestMemberRefresh(String member) {
+        synchronized (lock) {
+            if (!panelActive) {
+                lookupsDeferred = true;
+                return;
+            }
+            ScheduledFuture<?> pending = pendingMemberRefreshes.get(member);
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            // The task needs its own future to tell whether it has been superseded, and only reads it with the lock held.
+            AtomicReference<ScheduledFuture<?>> refresh = new AtomicReference<>();
+            refresh.set(executor.schedule(() -> runMemberRefresh(member, refresh), MEMBER_REFRESH_DELAY_MILLIS, TimeUnit.MILLISECONDS));
+            pendingMemberRefreshes.put(member, refresh.get());
+        }
+    }
+
+    /**
+     * Updates whether the panel is currently shown. Lookups that were deferred while the panel was hidden are run
+     * once it is shown.
+     *
+     * @param active Whether the panel is shown.
+     */
+    public void setPanelActive(boolean active) {
+        final boolean runDeferredLookups;
+        synchronized (lock) {
+            panelActive = active;
+            runDeferredLookups = active && lookupsDeferred;
+            lookupsDeferred = false;
+        }
+        if (runDeferredLookups) {
+            executor.execute(this::refreshHiscores);
+        }
+    }
+
+    /**
+     * Returns whether the panel is currently shown. Periodic work should pause while it is not.
+     */
+    public boolean isPanelActive() {
+        synchronized (lock) {
+            return panelActive;
+        }
+    }
+
+    /**
+     * Cancels any refresh that has not started yet.
+     */
+    public void shutDown() {
+        synchronized (lock) {
+            if (pendingRefresh != null) {
+                pendingRefresh.cancel(false);
+                pendingRefresh = null;
+            }
+            for (ScheduledFuture<?> pendingMemberRefresh : pendingMemberRefreshes.values()) {
+                pendingMemberRefresh.cancel(false);
+            }
+            pendingMemberRefreshes.clear();
+            lookupsDeferred = false;
+        }
+    }
+
+    private void runRefresh(boolean force, PanelMetrics.RefreshSource source) {
+        final String groupName = config.groupName();
+        final List<String> groupMembers = Text.fromCSV(config.groupMembers());
+
+        final boolean deferLookups;
+        synchronized (lock) {
+            if (!force && groupName.equals(lastGroupName) && groupMembers.equals(lastGroupMembers)) {
+                log.debug("Skipping refresh, group information is unchanged");
+                return;
+            }
+            lastGroupName = groupName;
+            lastGroupMembers = groupMembers;
+            deferLookups = !panelActive;
+            lookupsDeferred |= deferLookups;
+        }
+        metrics.recordRefresh(source);
+
+        panel.setGroupName(groupName);
+        panel.setGroupMembers(groupMembers);
+        if (!deferLookups) {
+            refreshHiscores();
+        }
+    }
+
+    /**
+     * @param refresh The future of this refresh, which is skipped if another has been requested for the member since.
+     */
+    private void runMemberRefresh(String member, AtomicReference<ScheduledFuture<?>> refresh) {
+        synchronized (lock) {
+            if (!pendingMemberRefreshes.remove(member, refresh.get())) {
+                return;
+            }
+        }
+        if (!panel.getGroupMembers().contains(member)) {
+            return;
+        }
+        metrics.recordRefresh(PanelMetrics.RefreshSource.BROADCAST);
+
+        try {
+            // The broadcast means the member's stats changed, so a result cached from before it would be out of date.
+            panel.refreshMember(member, true).thenAccept(stats -> {
+                if (stats != null) {
+                    refreshListener.accept(Collections.singletonList(stats));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh {}", member, e);
+        }
+    }
+
+    private void refreshHiscores() {
+        try {
+            panel.refreshPanel().thenAccept(results -> {
+                if (!results.isEmpty()) {
+                    refreshListener.accept(results);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh the group panel", e);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.groupironpanel;
+
+import net.runelite.client.util.Text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of everything the panel shows about the group: its name, its members, and the latest result
+ * for each member. Every change produces a new snapshot, so a snapshot can be rendered on the EDT while newer ones
+ * are being built on other threads.
+ */
+public final class GroupState {
+    static final GroupState EMPTY = new GroupState("", Collections.emptyList(), Collections.emptyMap(), Collections.emptyMap());
+
+    private final String groupName;
+
+    private final List<String> members;
+
+    /**
+     * The state of each member, keyed by the member's name exactly as configured. Members without any stats or
+     * lookup result yet are left out.
+     */
+    private final Map<String, MemberState> memberStates;
+
+    /**
+     * The stored hiscores shown until fresh hiscores have been fetched, keyed by the standardized player name.
+     */
+    private final Map<String, PlayerStats> snapshots;
+
+    private GroupState(String groupName, List<String> members, Map<String, MemberState> memberStates,
+                       Map<String, PlayerStats> snapshots) {
+        this.groupName = groupName;
+        this.members = members;
+        this.memberStates = memberStates;
+        this.snapshots = snapshots;
+    }
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    /**
+     * Returns the state of a member, or null if there is nothing to show for them yet.
+     */
+    public MemberState getMember(String member) {
+        return memberStates.get(member);
+    }
+
+    GroupState withGroupName(String groupName) {
+        return groupName.equals(this.groupName) ? this : new GroupState(groupName, members, memberStates, snapshots);
+    }
+
+    /**
+     * Returns a copy with new members. Members who remain in the group keep their state, and new members start out
+     * with their stored hiscores if there are any.
+     */
+    GroupState withMembers(List<String> members) {
+        if (members.equals(this.members)) {
+            return this;
+        }
+        Map<String, MemberState> states = new HashMap<>();
+        for (String member : members) {
+            MemberState state = memberStates.get(member);
+            if (state == null) {
+                PlayerStats snapshot = snapshots.get(Text.standardize(member));
+                state = snapshot == null ? null : new MemberState(snapshot, true, null);
+            }
+            if (state != null) {
+                states.put(member, state);
+            }
+        }
+        return new GroupState(groupName, Collections.unmodifiableList(new ArrayList<>(members)), Collections.unmodifiableMap(states), snapshots);
+    }
+
+    /**
+     * Returns a copy with stored hiscores, which replace the stats of any member whose stats are older.
+     *
+     * @param snapshots The stored hiscores, keyed by the standardized player name.
+     */
+    GroupState withSnapshots(Map<String, PlayerStats> snapshots) {
+        Map<String, MemberState> states = new HashMap<>(memberStates);
+        for (String member : members) {
+            PlayerStats snapshot = snapshots.get(Text.standardize(member));
+            MemberState state = memberStates.get(member);
+            if (snapshot != null && (state == null || state.stats == null || state.stats.getTimestamp() < snapshot.getTimestamp())) {
+                states.put(member, new MemberState(snapshot, true, null));
+            }
+        }
+        return new GroupState(groupName, members, Collections.unmodifiableMap(states), snapshots);
+    }
+
+    /**
+     * Returns a copy with freshly fetched stats for a member, or this state if they are no longer in the group.
+     */
+    GroupState withStats(String member, PlayerStats stats) {
+        if (!members.contains(member)) {
+            return this;
+        }
+        return withMemberState(member, new MemberState(stats, false, null));
+    }
+
+    /**
+     * Returns a copy recording that the latest lookup for a member failed. Any stats already shown are kept.
+     */
+    GroupState withLookupFailed(String member, String message) {
+        if (!members.contains(member)) {
+            return this;
+        }
+        MemberState state = memberStates.get(member);
+        return withMemberState(member, state == null
+                ? new MemberState(null, false, message)
+                : new MemberState(state.stats, state.levels, state.cached, message));
+    }
+
+    private GroupState withMemberState(String member, MemberState state) {
+        Map<String, MemberState> states = new HashMap<>(memberStates);
+        states.put(member, state);
+        return new GroupState(groupName, members, Collections.unmodifiableMap(states), snapshots);
+    }
+
+    /**
+     * The latest result for a single member, along with the levels derived from it.
+     */
+    public static final class MemberState {
+        private final PlayerStats stats;
+
+        private final int[] levels;
+
+        private final boolean cached;
+
+        private final String failure;
+
+        private MemberState(PlayerStats stats, boolean cached, String failure) {
+            this(stats, stats == null ? null : PlayerStatsPanel.computeLevels(stats), cached, failure);
+        }
+
+        private MemberState(PlayerStats stats, int[] levels, boolean cached, String failure) {
+            this.stats = stats;
+            this.levels = levels;
+            this.cached = cached;
+            this.failure = failure;
+        }
+
+        /**
+         * Returns the member's stats, or null if none have been fetched yet.
+         */
+        public PlayerStats getStats() {
+            return stats;
+        }
+
+        /**
+         * Returns the levels shown for the member's stats, as computed by {@link PlayerStatsPanel#computeLevels}.
+         */
+        int[] getLevels() {
+            return levels;
+        }
+
+        /**
+         * Returns whether the stats were loaded from disk rather than freshly fetched.
+         */
+        public boolean isCached() {
+            return cached;
+        }
+
+        /**
+         * Returns why the latest lookup for the member failed, or null if it didn't.
+         */
+        public String getFailure() {
+            return failure;
+        }
+    }
+}
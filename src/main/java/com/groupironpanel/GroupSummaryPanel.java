@@ -0,0 +1,172 @@
+package com.groupironpanel;
+
+import net.runelite.api.Experience;
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.hiscore.HiscoreSkillType;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+import net.runelite.client.util.QuantityFormatter;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shows the group's combined total level and XP, and when expanded, the best member in each skill along with how far
+ * behind them every other member is. Only the rows of the skills affected by an update are touched, and the rows
+ * are not created until the section is first expanded. Only accessed on the EDT.
+ */
+class GroupSummaryPanel extends JPanel {
+    private final GroupAggregate aggregate = new GroupAggregate();
+
+    private final Map<HiscoreSkill, SummaryRow> rows = new EnumMap<>(HiscoreSkill.class);
+
+    private JLabel totalsLabel;
+
+    private JPanel rowsPanel;
+
+    private boolean expanded;
+
+    GroupSummaryPanel() {
+        setLayout(new BorderLayout());
+        setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        setBorder(new EmptyBorder(5, 0, 5, 0));
+
+        totalsLabel = new JLabel();
+        totalsLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        totalsLabel.setToolTipText("Click to show the best member in each skill");
+        totalsLabel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                super.mouseClicked(e);
+                setExpanded(!expanded);
+            }
+        });
+        add(totalsLabel, BorderLayout.NORTH);
+
+        setVisible(false);
+    }
+
+    /**
+     * Updates the summary with a member's latest stats.
+     *
+     * @param stats The member's stats, or null if there are none to show.
+     */
+    void updateMember(PlayerStats stats) {
+        if (stats == null) {
+            return;
+        }
+        updateRows(aggregate.update(stats));
+    }
+
+    /**
+     * Removes the members that are no longer in the group from the summary.
+     *
+     * @param groupMembers The names of the members in the group.
+     */
+    void setGroupMembers(List<String> groupMembers) {
+        updateRows(aggregate.retainMembers(groupMembers));
+    }
+
+    private void updateRows(List<HiscoreSkill> changedSkills) {
+        if (changedSkills.isEmpty()) {
+            return;
+        }
+        totalsLabel.setText("Group total: "
+                + QuantityFormatter.formatNumber(aggregate.getTotalLevel())
+                + " (" + QuantityFormatter.quantityToStackSize(aggregate.getTotalXp()) + " XP)");
+        setVisible(!aggregate.isEmpty());
+
+        if (rowsPanel != null) {
+            for (HiscoreSkill skill : changedSkills) {
+                rows.get(skill).update();
+            }
+        }
+    }
+
+    private void setExpanded(boolean expanded) {
+        this.expanded = expanded;
+        if (expanded && rowsPanel == null) {
+            buildRows();
+        }
+        rowsPanel.setVisible(expanded);
+        updateRows(GroupAggregate.getAggregatedSkills());
+        revalidate();
+        repaint();
+    }
+
+    private void buildRows() {
+        rowsPanel = new JPanel(new GridLayout(0, 2));
+        rowsPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        rowsPanel.setBorder(new EmptyBorder(5, 0, 0, 0));
+        for (HiscoreSkill skill : GroupAggregate.getAggregatedSkills()) {
+            SummaryRow row = new SummaryRow(skill);
+            rows.put(skill, row);
+            rowsPanel.add(row);
+        }
+        add(rowsPanel, BorderLayout.CENTER);
+    }
+
+    /**
+     * The best level in a single skill and who has it, with each member's gap to them built lazily as the tooltip.
+     */
+    private class SummaryRow extends JLabel {
+        private final HiscoreSkill skill;
+
+        private String tooltip;
+
+        SummaryRow(HiscoreSkill skill) {
+            this.skill = skill;
+            setIcon(SkillIconCache.getSkillIcon(skill));
+            setFont(FontManager.getRunescapeSmallFont());
+            setText("-");
+            setToolTipText(skill.getName());
+        }
+
+        void update() {
+            PlayerStats best = aggregate.getBest(skill);
+            String text = best == null ? "-" : getLevel(best, skill) + " " + best.getPlayer();
+            if (!text.equals(getText())) {
+                setText(text);
+            }
+            tooltip = null;
+        }
+
+        @Override
+        public String getToolTipText() {
+            if (aggregate.getBest(skill) == null) {
+                return super.getToolTipText();
+            }
+            if (tooltip == null) {
+                tooltip = buildTooltip();
+            }
+            return tooltip;
+        }
+
+        private String buildTooltip() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("<html><body style = 'padding: 5px;color:#989898'>");
+            builder.append("<p><span style = 'color:white'>" + skill.getName() + "</span></p>");
+            for (PlayerStats member : aggregate.getMembers()) {
+                long gap = aggregate.getGap(member, skill);
+                String gapText = gap == -1 ? "Unranked" : gap == 0 ? "Best" : "-" + QuantityFormatter.formatNumber(gap) + " XP";
+                builder.append("<p><span style = 'color:white'>" + member.getPlayer() + ":</span> " + gapText + "</p>");
+            }
+            builder.append("</body></html>");
+            return builder.toString();
+        }
+    }
+
+    private static int getLevel(PlayerStats stats, HiscoreSkill skill) {
+        long experience = stats.getExperience(skill);
+        if (experience > -1 && skill.getType() == HiscoreSkillType.SKILL) {
+            return Experience.getLevelForXp((int) experience);
+        }
+        return stats.getLevel(skill);
+    }
+}
@@ -0,0 +1,195 @@
+package com.groupironpanel;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An HTTP client for hiscore lookups, derived from the client's shared {@link OkHttpClient}, that caches responses on
+ * disk for a short freshness window.
+ * <p>
+ * The hiscores don't send any caching headers of their own, so successful responses are marked as fresh for
+ * {@link #FRESHNESS_SECONDS} before they are cached. Looking up the same player again within the window, whether by
+ * reopening the panel, restarting the plugin or refreshing twice, is answered from the cache without a round trip.
+ * Once the window has passed, the response is revalidated with a conditional request if the hiscores sent a validator
+ * with it, and fetched again otherwise.
+ * <p>
+ * The on-disk cache can't be shared between processes, so every client running the plugin on the same machine claims
+ * a cache directory of its own by locking it, and keeps it until it is closed. A client that finds every directory
+ * claimed runs without a disk cache, and relies on the {@link SharedHiscoreCache} instead.
+ * <p>
+ * The client has its own connection pool and dispatcher, sized so that a whole group can be looked up in parallel over
+ * reused connections without queueing behind requests from other plugins.
+ */
+@Slf4j
+public class HiscoreHttpCache {
+    static final int FRESHNESS_SECONDS = 60;
+
+    private static final long CACHE_SIZE_BYTES = 5 * 1024 * 1024;
+
+    private static final int MAX_PARALLEL_REQUESTS = 5;
+
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    /**
+     * The number of cache directories, and so the number of clients that can have a disk cache at the same time.
+     */
+    private static final int MAX_CACHE_DIRECTORIES = 8;
+
+    /**
+     * The cache, or null if every cache directory was claimed by another client.
+     */
+    private final Cache cache;
+
+    /**
+     * The lock that claims the cache directory, held until the cache is closed.
+     */
+    private FileChannel lockChannel;
+
+    private final Dispatcher dispatcher;
+
+    private final ConnectionPool connectionPool;
+
+    private final OkHttpClient client;
+
+    private final OkHttpClient freshClient;
+
+    /**
+     * @param baseClient The client to derive the hiscore client from.
+     * @param directory  The directory the cache directories of each client are kept in.
+     */
+    public HiscoreHttpCache(OkHttpClient baseClient, File directory) {
+        cache = claimCache(directory);
+
+        dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_PARALLEL_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_PARALLEL_REQUESTS);
+
+        connectionPool = new ConnectionPool(MAX_PARALLEL_REQUESTS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES);
+
+        client = baseClient.newBuilder()
+                .cache(cache)
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .addNetworkInterceptor(chain -> applyFreshnessWindow(chain.proceed(chain.request())))
+                .build();
+        freshClient = client.newBuilder()
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder().cacheControl(CacheControl.FORCE_NETWORK).build()))
+                .build();
+    }
+
+    /**
+     * Returns the client to look up hiscores with.
+     */
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * Returns a client that shares everything with {@link #getClient()}, but always fetches from the hiscores instead
+     * of answering from the cache. Its responses are still cached for the regular client.
+     */
+    public OkHttpClient getFreshClient() {
+        return freshClient;
+    }
+
+    /**
+     * Returns the number of requests answered from the cache, including those revalidated with the hiscores.
+     */
+    public int getHitCount() {
+        return cache == null ? 0 : cache.hitCount();
+    }
+
+    /**
+     * Returns the number of requests that needed a round trip to the hiscores.
+     */
+    public int getNetworkCount() {
+        return cache == null ? 0 : cache.networkCount();
+    }
+
+    /**
+     * Cancels any requests in flight, closes the pooled connections and closes the cache, releasing its directory.
+     */
+    public void close() {
+        dispatcher.cancelAll();
+        dispatcher.executorService().shutdown();
+        connectionPool.evictAll();
+        try {
+            if (cache != null) {
+                cache.close();
+            }
+        } catch (IOException e) {
+            log.warn("Unable to close the hiscore cache", e);
+        }
+        try {
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            log.warn("Unable to release the hiscore cache directory", e);
+        }
+    }
+
+    /**
+     * Claims the first cache directory that no other client holds. The lock file sits next to the directory rather
+     * than inside it, since the cache may delete everything in its directory if it finds it corrupted.
+     *
+     * @return The cache, or null if every directory is claimed.
+     */
+    private Cache claimCache(File directory) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            log.warn("Unable to create the hiscore cache directory {}", directory);
+            return null;
+        }
+        for (int i = 0; i < MAX_CACHE_DIRECTORIES; i++) {
+            File lockFile = new File(directory, "client-" + i + ".lock");
+            FileChannel channel = null;
+            try {
+                channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.tryLock();
+                if (lock != null) {
+                    lockChannel = channel;
+                    return new Cache(new File(directory, "client-" + i), CACHE_SIZE_BYTES);
+                }
+            } catch (IOException | OverlappingFileLockException e) {
+                log.debug("Unable to claim hiscore cache directory {}", i, e);
+            }
+            closeQuietly(channel);
+        }
+        log.debug("Every hiscore cache directory is in use, running without a disk cache");
+        return null;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Unable to close the hiscore cache lock", e);
+        }
+    }
+
+    private static Response applyFreshnessWindow(Response response) {
+        if (!response.isSuccessful()) {
+            return response;
+        }
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", "public, max-age=" + FRESHNESS_SECONDS)
+                .build();
+    }
+}
@@ -0,0 +1,307 @@
+package com.groupironpanel;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.hiscore.HiscoreClient;
+import net.runelite.client.hiscore.HiscoreEndpoint;
+import net.runelite.client.util.Text;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The single entry point for the plugin's hiscore lookups.
+ * Concurrent lookups for the same player and endpoint are merged into one request, lookups for empty names are
+ * skipped, and the number of requests in flight at once is capped.
+ * <p>
+ * Lookups are normally answered from a recent result where there is one. Fresh lookups, made when a player's stats
+ * are known to have changed, always go to the hiscores, though they still wait for another client that is already
+ * fetching the player.
+ */
+@Slf4j
+public class HiscoreLookupGateway {
+    private final HiscoreClient hiscoreClient;
+
+    /**
+     * Used instead of {@link #hiscoreClient} for fresh lookups when set, to bypass the HTTP cache.
+     */
+    private volatile HiscoreClient freshHiscoreClient;
+
+    /**
+     * Used instead of {@link #hiscoreClient} when set, to read only the skills from the hiscores.
+     */
+    private volatile StreamingHiscoreClient streamingClient;
+
+    /**
+     * Shares results with the other clients on this machine when set.
+     */
+    private volatile SharedHiscoreCache sharedCache;
+
+    private final Map<LookupKey, CompletableFuture<PlayerStats>> lookups = new HashMap<>();
+
+    private final Deque<Runnable> queuedLookups = new ArrayDeque<>();
+
+    private final AtomicLong mergedCount = new AtomicLong();
+
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    private final AtomicLong issuedCount = new AtomicLong();
+
+    private int runningLookups;
+
+    private int maxConcurrentLookups;
+
+    private boolean shutDown;
+
+    public HiscoreLookupGateway(HiscoreClient hiscoreClient, int maxConcurrentLookups) {
+        this.hiscoreClient = hiscoreClient;
+        this.maxConcurrentLookups = Math.max(1, maxConcurrentLookups);
+    }
+
+    /**
+     * Looks up the hiscores for a player, using a recent result if there is one.
+     * The returned future belongs to the caller, so cancelling it does not affect anyone else waiting on the same
+     * lookup.
+     *
+     * @param username The name of the player.
+     * @param endpoint The hiscore endpoint to look the player up on.
+     * @return A future that completes with the player's hiscores, or with null if the player could not be found or
+     * the name is empty.
+     */
+    public CompletableFuture<PlayerStats> lookup(String username, HiscoreEndpoint endpoint) {
+        return lookup(username, endpoint, false);
+    }
+
+    /**
+     * Looks up the hiscores for a player.
+     * The returned future belongs to the caller, so cancelling it does not affect anyone else waiting on the same
+     * lookup.
+     *
+     * @param username The name of the player.
+     * @param endpoint The hiscore endpoint to look the player up on.
+     * @param fresh    Whether to skip any cached result and fetch the player from the hiscores.
+     * @return A future that completes with the player's hiscores, or with null if the player could not be found or
+     * the name is empty.
+     */
+    public CompletableFuture<PlayerStats> lookup(String username, HiscoreEndpoint endpoint, boolean fresh) {
+        if (username == null || username.trim().isEmpty()) {
+            skippedCount.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final LookupKey key = new LookupKey(Text.standardize(username), endpoint, fresh);
+        CompletableFuture<PlayerStats> sharedLookup;
+        Runnable lookupToStart = null;
+        synchronized (this) {
+            sharedLookup = lookups.get(key);
+            if (shutDown) {
+                sharedLookup = new CompletableFuture<>();
+                sharedLookup.completeExceptionally(new CancellationException());
+            } else if (sharedLookup != null) {
+                mergedCount.incrementAndGet();
+            } else {
+                final CompletableFuture<PlayerStats> newLookup = new CompletableFuture<>();
+                sharedLookup = newLookup;
+                lookups.put(key, newLookup);
+                queuedLookups.add(() -> issueLookup(key, username, newLookup));
+                lookupToStart = pollQueuedLookup();
+            }
+        }
+        if (lookupToStart != null) {
+            lookupToStart.run();
+        }
+
+        CompletableFuture<PlayerStats> callerLookup = new CompletableFuture<>();
+        sharedLookup.whenComplete((playerStats, ex) -> {
+            if (ex != null) {
+                callerLookup.completeExceptionally(ex);
+            } else {
+                callerLookup.complete(playerStats);
+            }
+        });
+        return callerLookup;
+    }
+
+    /**
+     * Sets the client to look up hiscores with instead of the {@link HiscoreClient}.
+     *
+     * @param streamingClient The client that streams only the skills out of the hiscores, or null to go back to using
+     *                        the {@link HiscoreClient}.
+     */
+    public void setStreamingClient(StreamingHiscoreClient streamingClient) {
+        this.streamingClient = streamingClient;
+    }
+
+    /**
+     * Sets the client to make fresh lookups with, which must not answer them from an HTTP cache.
+     *
+     * @param freshHiscoreClient The client for fresh lookups, or null to use the regular client for them.
+     */
+    public void setFreshHiscoreClient(HiscoreClient freshHiscoreClient) {
+        this.freshHiscoreClient = freshHiscoreClient;
+    }
+
+    /**
+     * Sets the cache to share hiscore results with the other clients on this machine through.
+     *
+     * @param sharedCache The shared cache, or null to always look players up directly.
+     */
+    public void setSharedCache(SharedHiscoreCache sharedCache) {
+        this.sharedCache = sharedCache;
+    }
+
+    /**
+     * Changes the maximum number of lookups that can be in flight at once.
+     */
+    public void setMaxConcurrentLookups(int maxConcurrentLookups) {
+        Runnable lookupToStart;
+        synchronized (this) {
+            this.maxConcurrentLookups = Math.max(1, maxConcurrentLookups);
+            lookupToStart = pollQueuedLookup();
+        }
+        while (lookupToStart != null) {
+            lookupToStart.run();
+            synchronized (this) {
+                lookupToStart = pollQueuedLookup();
+            }
+        }
+    }
+
+    /**
+     * Cancels every queued and in-flight lookup and rejects any made afterwards. Requests already sent to the
+     * hiscores are left to finish, but nobody is waiting on them any more.
+     */
+    public void shutDown() {
+        List<CompletableFuture<PlayerStats>> cancelledLookups;
+        synchronized (this) {
+            shutDown = true;
+            queuedLookups.clear();
+            cancelledLookups = new ArrayList<>(lookups.values());
+            lookups.clear();
+        }
+        for (CompletableFuture<PlayerStats> lookup : cancelledLookups) {
+            lookup.completeExceptionally(new CancellationException());
+        }
+    }
+
+    /**
+     * Returns the number of lookups that were merged into a lookup that was already in flight.
+     */
+    public long getMergedCount() {
+        return mergedCount.get();
+    }
+
+    /**
+     * Returns the number of lookups that were skipped because the player name was empty.
+     */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    /**
+     * Returns the number of lookups that were actually sent to the hiscores.
+     */
+    public long getIssuedCount() {
+        return issuedCount.get();
+    }
+
+    /**
+     * Takes the next queued lookup if there is a free slot for it, reserving the slot. Must hold the lock.
+     */
+    private Runnable pollQueuedLookup() {
+        if (runningLookups >= maxConcurrentLookups || queuedLookups.isEmpty()) {
+            return null;
+        }
+        runningLookups++;
+        return queuedLookups.poll();
+    }
+
+    private void issueLookup(LookupKey key, String username, CompletableFuture<PlayerStats> sharedLookup) {
+        SharedHiscoreCache sharedCache = this.sharedCache;
+        // Read once, so that the result is shared as skills-only exactly when it was fetched that way.
+        StreamingHiscoreClient streamingClient = this.streamingClient;
+        CompletableFuture<PlayerStats> lookup = sharedCache != null
+                ? sharedCache.lookup(key.username, key.endpoint, streamingClient != null, key.fresh,
+                        () -> fetch(streamingClient, username, key.endpoint, key.fresh))
+                : fetch(streamingClient, username, key.endpoint, key.fresh);
+
+        lookup.whenComplete((playerStats, ex) -> {
+            Runnable lookupToStart;
+            synchronized (this) {
+                lookups.remove(key, sharedLookup);
+                runningLookups--;
+                lookupToStart = pollQueuedLookup();
+            }
+
+            if (ex != null) {
+                sharedLookup.completeExceptionally(ex);
+            } else {
+                sharedLookup.complete(playerStats);
+            }
+
+            if (lookupToStart != null) {
+                lookupToStart.run();
+            }
+        });
+    }
+
+    /**
+     * Sends a lookup to the hiscores.
+     *
+     * @param streamingClient The client to read only the skills with, or null to read the full hiscores.
+     */
+    private CompletableFuture<PlayerStats> fetch(StreamingHiscoreClient streamingClient, String username,
+                                                 HiscoreEndpoint endpoint, boolean fresh) {
+        issuedCount.incrementAndGet();
+        try {
+            HiscoreClient freshHiscoreClient = this.freshHiscoreClient;
+            HiscoreClient hiscoreClient = fresh && freshHiscoreClient != null ? freshHiscoreClient : this.hiscoreClient;
+            return streamingClient != null
+                    ? streamingClient.lookupAsync(username, endpoint, fresh)
+                    : hiscoreClient.lookupAsync(username, endpoint)
+                    .thenApply(result -> result == null ? null : PlayerStats.fromHiscoreResult(result, System.currentTimeMillis()));
+        } catch (RuntimeException e) {
+            CompletableFuture<PlayerStats> lookup = new CompletableFuture<>();
+            lookup.completeExceptionally(e);
+            return lookup;
+        }
+    }
+
+    private static final class LookupKey {
+        private final String username;
+
+        private final HiscoreEndpoint endpoint;
+
+        private final boolean fresh;
+
+        private LookupKey(String username, HiscoreEndpoint endpoint, boolean fresh) {
+            this.username = username;
+            this.endpoint = endpoint;
+            this.fresh = fresh;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LookupKey)) {
+                return false;
+            }
+            LookupKey other = (LookupKey) o;
+            return username.equals(other.username) && endpoint == other.endpoint && fresh == other.fresh;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, endpoint, fresh);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.groupironpanel;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.util.Text;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persists the most recent hiscores of each group member in a compact binary file, so that the panel can be
+ * populated straight away the next time the client starts.
+ * None of the methods should be called from the EDT.
+ */
+@Slf4j
+public class HiscoreSnapshotStore {
+    private static final int MAGIC = 0x47495053;
+
+    private static final int VERSION = 1;
+
+    private final File file;
+
+    public HiscoreSnapshotStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the stored snapshots.
+     *
+     * @return The stored stats, keyed by the standardized player name. Empty if there is no snapshot file.
+     */
+    public Map<String, PlayerStats> load() throws IOException {
+        Map<String, PlayerStats> snapshots = new HashMap<>();
+        if (!file.exists()) {
+            return snapshots;
+        }
+
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+                log.debug("Ignoring hiscore snapshot file with an unknown format");
+                return snapshots;
+            }
+            PlayerStats stats;
+            while ((stats = readPlayerStats(in)) != null) {
+                snapshots.put(Text.standardize(stats.getPlayer()), stats);
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Replaces the stored snapshots.
+     *
+     * @param snapshots The stats to store.
+     */
+    public void save(Collection<PlayerStats> snapshots) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable to create directory " + parent);
+        }
+
+        // Write to a temporary file first so a crash mid-write can't leave a truncated snapshot behind.
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            for (PlayerStats stats : snapshots) {
+                writePlayerStats(out, stats);
+            }
+            out.writeBoolean(false);
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the stats for one player. Skills are written by name rather than ordinal so that snapshots survive
+     * RuneLite adding new skills, bosses or activities, and skills missing from the hiscores are left out entirely.
+     */
+    static void writePlayerStats(DataOutputStream out, PlayerStats stats) throws IOException {
+        out.writeBoolean(true);
+        out.writeUTF(stats.getPlayer());
+        out.writeLong(stats.getTimestamp());
+
+        int count = 0;
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            if (stats.hasSkill(skill)) {
+                count++;
+            }
+        }
+        out.writeShort(count);
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            if (stats.hasSkill(skill)) {
+                out.writeUTF(skill.name());
+                out.writeInt(stats.getRank(skill));
+                out.writeInt(stats.getLevel(skill));
+                out.writeLong(stats.getExperience(skill));
+            }
+        }
+    }
+
+    /**
+     * Reads the stats for one player.
+     *
+     * @return The stats, or null if there are no more players to read.
+     */
+    static PlayerStats readPlayerStats(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String player = in.readUTF();
+        long timestamp = in.readLong();
+
+        int[] ranks = PlayerStats.emptyInts();
+        int[] levels = PlayerStats.emptyInts();
+        long[] experience = PlayerStats.emptyLongs();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            String skillName = in.readUTF();
+            int rank = in.readInt();
+            int level = in.readInt();
+            long xp = in.readLong();
+
+            HiscoreSkill skill;
+            try {
+                skill = HiscoreSkill.valueOf(skillName);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            ranks[skill.ordinal()] = rank;
+            levels[skill.ordinal()] = level;
+            experience[skill.ordinal()] = xp;
+        }
+        return new PlayerStats(player, timestamp, ranks, levels, experience);
+    }
+}
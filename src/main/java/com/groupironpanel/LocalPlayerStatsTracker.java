@@ -0,0 +1,112 @@
+package com.groupironpanel;
+
+import net.runelite.api.Skill;
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.hiscore.HiscoreSkillType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Tracks the logged in player's stats from the client's own skill XP, so that they never need to be looked up on
+ * the hiscores. Only accessed from the client thread.
+ */
+class LocalPlayerStatsTracker {
+    private static final Map<Skill, HiscoreSkill> HISCORE_SKILLS = new EnumMap<>(Skill.class);
+
+    static {
+        for (Skill skill : Skill.values()) {
+            try {
+                HiscoreSkill hiscoreSkill = HiscoreSkill.valueOf(skill.name());
+                if (hiscoreSkill.getType() == HiscoreSkillType.SKILL) {
+                    HISCORE_SKILLS.put(skill, hiscoreSkill);
+                }
+            } catch (IllegalArgumentException e) {
+                // Not shown on the hiscores.
+            }
+        }
+    }
+
+    private String player;
+
+    /**
+     * Returns whether a client skill is shown on the hiscores, and so tracked.
+     */
+    static boolean isTracked(Skill skill) {
+        return HISCORE_SKILLS.containsKey(skill);
+    }
+
+    private int[] ranks = PlayerStats.emptyInts();
+
+    private int[] levels = PlayerStats.emptyInts();
+
+    private long[] experience = PlayerStats.emptyLongs();
+
+    /**
+     * Starts tracking a player.
+     *
+     * @param player The name of the player.
+     * @param seed   The player's last known hiscores, which provide the ranks and the boss and activity scores that
+     *               the client doesn't know about, or null if there are none.
+     */
+    void reset(String player, PlayerStats seed) {
+        this.player = player;
+        ranks = PlayerStats.emptyInts();
+        levels = PlayerStats.emptyInts();
+        experience = PlayerStats.emptyLongs();
+        if (seed != null) {
+            for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+                ranks[skill.ordinal()] = seed.getRank(skill);
+                levels[skill.ordinal()] = seed.getLevel(skill);
+                experience[skill.ordinal()] = seed.getExperience(skill);
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the player being tracked, or null if no one is.
+     */
+    String getPlayer() {
+        return player;
+    }
+
+    /**
+     * Records a change to one of the player's skills.
+     *
+     * @return Whether the level or XP shown for the skill changed.
+     */
+    boolean update(Skill skill, int level, int xp) {
+        HiscoreSkill hiscoreSkill = HISCORE_SKILLS.get(skill);
+        if (player == null || hiscoreSkill == null) {
+            return false;
+        }
+        int i = hiscoreSkill.ordinal();
+        if (levels[i] == level && experience[i] == xp) {
+            return false;
+        }
+        levels[i] = level;
+        experience[i] = xp;
+        return true;
+    }
+
+    /**
+     * Returns a copy of the tracked stats, with the overall level and XP totalled from the individual skills.
+     */
+    PlayerStats snapshot(long timestamp) {
+        int totalLevel = 0;
+        long totalXp = 0;
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            int i = skill.ordinal();
+            if (skill.getType() == HiscoreSkillType.SKILL && levels[i] > 0) {
+                totalLevel += levels[i];
+                totalXp += Math.max(0, experience[i]);
+            }
+        }
+
+        int[] levels = this.levels.clone();
+        long[] experience = this.experience.clone();
+        levels[HiscoreSkill.OVERALL.ordinal()] = totalLevel;
+        experience[HiscoreSkill.OVERALL.ordinal()] = totalXp;
+        return new PlayerStats(player, timestamp, ranks.clone(), levels, experience);
+    }
+}
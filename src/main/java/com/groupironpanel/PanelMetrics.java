@@ -0,0 +1,220 @@
+package com.groupironpanel;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lightweight metrics for the plugin's hot paths, shown in the diagnostics section of the panel.
+ * Nothing is recorded, and no clocks are read, unless the metrics are enabled.
+ */
+public class PanelMetrics {
+    /**
+     * The sources a refresh can be triggered from.
+     */
+    public enum RefreshSource {
+        STARTUP,
+        CONFIG,
+        MANUAL,
+        AUTO_REFRESH,
+        BROADCAST
+    }
+
+    /**
+     * The outcomes of a hiscore lookup.
+     */
+    public enum LookupOutcome {
+        SUCCESS,
+        NOT_FOUND,
+        FAILURE,
+        TIMEOUT
+    }
+
+    /**
+     * Lookup latencies are counted in power of two buckets of milliseconds, from under 1ms up to 32s and over.
+     */
+    private static final int LATENCY_BUCKETS = 17;
+
+    private final HiscoreLookupGateway lookupGateway;
+
+    private HiscoreHttpCache httpCache;
+
+    private SharedHiscoreCache sharedCache;
+
+    private volatile boolean enabled;
+
+    private final AtomicLongArray lookupLatencies = new AtomicLongArray(LATENCY_BUCKETS);
+
+    private final Map<String, AtomicLongArray> memberOutcomes = new ConcurrentHashMap<>();
+
+    private final AtomicLongArray refreshes = new AtomicLongArray(RefreshSource.values().length);
+
+    private final AtomicLong edtUpdates = new AtomicLong();
+
+    private final AtomicLong edtNanos = new AtomicLong();
+
+    private final AtomicLong edtMaxNanos = new AtomicLong();
+
+    private final AtomicLong autoDetectScans = new AtomicLong();
+
+    private final AtomicLong autoDetectNanos = new AtomicLong();
+
+    /**
+     * @param lookupGateway The gateway whose request counters are included when the metrics are formatted.
+     */
+    public PanelMetrics(HiscoreLookupGateway lookupGateway) {
+        this.lookupGateway = lookupGateway;
+    }
+
+    /**
+     * Sets the HTTP cache whose hit counts are included when the metrics are formatted.
+     */
+    public void setHttpCache(HiscoreHttpCache httpCache) {
+        this.httpCache = httpCache;
+    }
+
+    /**
+     * Sets the cache shared with other clients whose hit counts are included when the metrics are formatted.
+     */
+    public void setSharedCache(SharedHiscoreCache sharedCache) {
+        this.sharedCache = sharedCache;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return The start time to pass back when recording the operation, or 0 if the metrics are disabled.
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void recordRefresh(RefreshSource source) {
+        if (enabled) {
+            refreshes.incrementAndGet(source.ordinal());
+        }
+    }
+
+    public void recordLookup(String member, LookupOutcome outcome, long startNanos) {
+        if (!enabled || startNanos == 0) {
+            return;
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        int bucket = Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+        lookupLatencies.incrementAndGet(bucket);
+        memberOutcomes.computeIfAbsent(member, m -> new AtomicLongArray(LookupOutcome.values().length))
+                .incrementAndGet(outcome.ordinal());
+    }
+
+    public void recordEdtUpdate(long startNanos) {
+        if (!enabled || startNanos == 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        edtUpdates.incrementAndGet();
+        edtNanos.addAndGet(nanos);
+        edtMaxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public void recordAutoDetectScan(long startNanos) {
+        if (!enabled || startNanos == 0) {
+            return;
+        }
+        autoDetectScans.incrementAndGet();
+        autoDetectNanos.addAndGet(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Formats the metrics as human readable text, one metric per line.
+     */
+    public String format() {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("Refreshes:");
+        for (RefreshSource source : RefreshSource.values()) {
+            builder.append(' ').append(source.name().toLowerCase()).append('=').append(refreshes.get(source.ordinal()));
+        }
+        builder.append('\n');
+
+        builder.append("Lookups: issued=").append(lookupGateway.getIssuedCount())
+                .append(" merged=").append(lookupGateway.getMergedCount())
+                .append(" skipped=").append(lookupGateway.getSkippedCount())
+                .append('\n');
+
+        if (httpCache != null) {
+            builder.append("HTTP cache: hits=").append(httpCache.getHitCount())
+                    .append(" network=").append(httpCache.getNetworkCount())
+                    .append('\n');
+        }
+
+        if (sharedCache != null) {
+            builder.append("Shared cache: hits=").append(sharedCache.getHitCount())
+                    .append(" fetched=").append(sharedCache.getFetchCount())
+                    .append('\n');
+        }
+
+        long lookups = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            lookups += lookupLatencies.get(i);
+        }
+        builder.append("Lookup latency: p50<").append(formatBucket(latencyPercentile(lookups, 0.5)))
+                .append(" p90<").append(formatBucket(latencyPercentile(lookups, 0.9)))
+                .append(" p99<").append(formatBucket(latencyPercentile(lookups, 0.99)))
+                .append('\n');
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            long count = lookupLatencies.get(i);
+            if (count > 0) {
+                builder.append("  <").append(formatBucket(i)).append(": ").append(count).append('\n');
+            }
+        }
+
+        for (Map.Entry<String, AtomicLongArray> entry : new TreeMap<>(memberOutcomes).entrySet()) {
+            AtomicLongArray outcomes = entry.getValue();
+            builder.append(entry.getKey()).append(':');
+            for (LookupOutcome outcome : LookupOutcome.values()) {
+                builder.append(' ').append(outcome.name().toLowerCase()).append('=').append(outcomes.get(outcome.ordinal()));
+            }
+            builder.append('\n');
+        }
+
+        long updates = edtUpdates.get();
+        builder.append("EDT updates: ").append(updates)
+                .append(" avg=").append(updates == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(edtNanos.get() / updates)).append("us")
+                .append(" max=").append(TimeUnit.NANOSECONDS.toMicros(edtMaxNanos.get())).append("us")
+                .append('\n');
+
+        long scans = autoDetectScans.get();
+        builder.append("Auto-detect scans: ").append(scans)
+                .append(" avg=").append(scans == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(autoDetectNanos.get() / scans)).append("us");
+
+        return builder.toString();
+    }
+
+    private int latencyPercentile(long total, double percentile) {
+        long target = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            seen += lookupLatencies.get(i);
+            if (seen >= target && seen > 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static String formatBucket(int bucket) {
+        long upperMillis = 1L << bucket;
+        return bucket == LATENCY_BUCKETS - 1 ? "inf" : upperMillis < 1000 ? upperMillis + "ms" : (upperMillis / 1000) + "s";
+    }
+}
@@ -0,0 +1,104 @@
+package com.groupironpanel;
+
+import net.runelite.client.hiscore.HiscoreResult;
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.hiscore.Skill;
+
+import java.util.Arrays;
+
+/**
+ * A compact, immutable copy of a player's hiscores.
+ * Values are stored in primitive arrays indexed by {@link HiscoreSkill#ordinal()}, and skills that were missing
+ * from the hiscores have a rank, level and experience of -1.
+ */
+public final class PlayerStats {
+    static final HiscoreSkill[] HISCORE_SKILLS = HiscoreSkill.values();
+
+    private final String player;
+
+    private final long timestamp;
+
+    private final int[] ranks;
+
+    private final int[] levels;
+
+    private final long[] experience;
+
+    PlayerStats(String player, long timestamp, int[] ranks, int[] levels, long[] experience) {
+        this.player = player;
+        this.timestamp = timestamp;
+        this.ranks = ranks;
+        this.levels = levels;
+        this.experience = experience;
+    }
+
+    /**
+     * Copies the values out of a hiscore result.
+     *
+     * @param result    The hiscore result to copy.
+     * @param timestamp The time at which the result was fetched, in milliseconds since the epoch.
+     */
+    public static PlayerStats fromHiscoreResult(HiscoreResult result, long timestamp) {
+        int[] ranks = emptyInts();
+        int[] levels = emptyInts();
+        long[] experience = emptyLongs();
+        for (HiscoreSkill skill : HISCORE_SKILLS) {
+            Skill resultSkill = result.getSkill(skill);
+            if (resultSkill != null) {
+                int i = skill.ordinal();
+                ranks[i] = resultSkill.getRank();
+                levels[i] = resultSkill.getLevel();
+                experience[i] = resultSkill.getExperience();
+            }
+        }
+        return new PlayerStats(result.getPlayer(), timestamp, ranks, levels, experience);
+    }
+
+    static int[] emptyInts() {
+        int[] values = new int[HISCORE_SKILLS.length];
+        Arrays.fill(values, -1);
+        return values;
+    }
+
+    static long[] emptyLongs() {
+        long[] values = new long[HISCORE_SKILLS.length];
+        Arrays.fill(values, -1L);
+        return values;
+    }
+
+    /**
+     * Returns the name of the player the stats belong to.
+     */
+    public String getPlayer() {
+        return player;
+    }
+
+    /**
+     * Returns the time at which the stats were fetched, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns whether the hiscores contained an entry for the skill.
+     */
+    public boolean hasSkill(HiscoreSkill skill) {
+        return levels[skill.ordinal()] != -1 || experience[skill.ordinal()] != -1L;
+    }
+
+    public int getRank(HiscoreSkill skill) {
+        return ranks[skill.ordinal()];
+    }
+
+    /**
+     * Returns the level for a skill, or the score for a boss or activity.
+     */
+    public int getLevel(HiscoreSkill skill) {
+        return levels[skill.ordinal()];
+    }
+
+    public long getExperience(HiscoreSkill skill) {
+        return experience[skill.ordinal()];
+    }
+}
@@ -3,17 +3,18 @@ package com.groupironpanel;
 import com.google.common.collect.ImmutableList;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Experience;
-import net.runelite.client.RuneLite;
 import net.runelite.client.hiscore.*;
 import net.runelite.client.ui.ColorScheme;
-import net.runelite.client.util.ImageUtil;
+import net.runelite.client.ui.FontManager;
 import net.runelite.client.util.QuantityFormatter;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 import static net.runelite.client.hiscore.HiscoreSkill.*;
 
@@ -30,16 +31,54 @@ public class PlayerStatsPanel extends JPanel {
             CONSTRUCTION, HUNTER, SAILING
     );
 
-    private Map<HiscoreSkill, JLabel> skillToLabel = new HashMap<>();
+    private static final List<HiscoreSkill> COMBAT_SKILLS = ImmutableList.of(
+            ATTACK, STRENGTH, DEFENCE, HITPOINTS, MAGIC, RANGED, PRAYER
+    );
+
+    /**
+     * The cells of the skill grid: the skills, followed by a summary row with the combat level (null) and total level.
+     */
+    private static final List<HiscoreSkill> GRID_SKILLS;
 
-    private HiscoreClient hiscoreClient;
+    static {
+        List<HiscoreSkill> gridSkills = new ArrayList<>(SKILLS);
+        gridSkills.add(null);
+        gridSkills.add(OVERALL);
+        GRID_SKILLS = Collections.unmodifiableList(gridSkills);
+    }
+
+    /**
+     * The index of the combat level in the arrays returned by {@link #computeLevels(PlayerStats)}.
+     */
+    private static final int COMBAT_LEVEL_INDEX = PlayerStats.HISCORE_SKILLS.length;
+
+    private SkillGrid skillGrid;
+
+    private ActivitiesPanel activitiesPanel;
 
     private String username;
 
     private JLabel usernameLabel;
 
-    public PlayerStatsPanel(HiscoreClient hiscoreClient) {
-        this.hiscoreClient = hiscoreClient;
+    private JLabel statusLabel;
+
+    private PlayerStats stats;
+
+    /**
+     * The levels shown for {@link #stats}, as computed by {@link #computeLevels(PlayerStats)}.
+     */
+    private int[] levels;
+
+    private XpHistoryStore xpHistory;
+
+    private XpGainedPeriod xpGainedPeriod = XpGainedPeriod.OFF;
+
+    /**
+     * The XP gained over the period being shown, indexed by {@link HiscoreSkill#ordinal()}. Reused between updates.
+     */
+    private final long[] xpGained = new long[PlayerStats.HISCORE_SKILLS.length];
+
+    public PlayerStatsPanel() {
         buildPanel();
     }
 
@@ -47,56 +86,251 @@ public class PlayerStatsPanel extends JPanel {
      * Clears the stats on the panel.
      */
     public void clearStats() {
-        for (Map.Entry<HiscoreSkill, JLabel> entry : skillToLabel.entrySet()) {
-            JLabel label = entry.getValue();
-            if (label != null) {
-                label.setText("-");
-            }
+        stats = null;
+        levels = null;
+        skillGrid.clear();
+        activitiesPanel.setStats(null);
+        statusLabel.setVisible(false);
+    }
+
+    /**
+     * Updates the stats with freshly fetched hiscores.
+     *
+     * @param playerStats The hiscores for the player displayed in this panel.
+     */
+    public void updateStats(PlayerStats playerStats) {
+        if (playerStats == null) {
+            return;
+        }
+
+        updateStats(playerStats, computeLevels(playerStats));
+    }
+
+    /**
+     * Updates the stats with freshly fetched hiscores whose levels have already been computed.
+     *
+     * @param playerStats The hiscores for the player displayed in this panel.
+     * @param levels      The levels computed from the hiscores by {@link #computeLevels(PlayerStats)}.
+     */
+    public void updateStats(PlayerStats playerStats, int[] levels) {
+        showStats(playerStats, levels);
+        statusLabel.setVisible(false);
+    }
+
+    /**
+     * Shows that the latest hiscore lookup for the player failed. Any stats already shown are kept.
+     *
+     * @param message A short description of the failure.
+     */
+    public void showLookupFailed(String message) {
+        statusLabel.setText(message);
+        statusLabel.setForeground(ColorScheme.PROGRESS_ERROR_COLOR);
+        statusLabel.setVisible(true);
+    }
+
+    /**
+     * Shows previously stored hiscores, marked as stale with their age.
+     * Nothing is changed if the panel already shows stats that are at least as recent.
+     *
+     * @param cachedStats The stored hiscores for the player displayed in this panel.
+     */
+    public void showCachedStats(PlayerStats cachedStats) {
+        if (cachedStats == null) {
+            return;
         }
+        showCachedStats(cachedStats, computeLevels(cachedStats));
     }
 
     /**
-     * Updates the stats with a given hiscore result.
+     * Shows previously stored hiscores whose levels have already been computed, marked as stale with their age.
+     * Nothing is changed if the panel already shows stats that are at least as recent.
      *
-     * @param playerResult     The hiscore result for the player displayed in this panel.
+     * @param cachedStats The stored hiscores for the player displayed in this panel.
+     * @param levels      The levels computed from the hiscores by {@link #computeLevels(PlayerStats)}.
      */
-    public void updateStats(HiscoreResult playerResult) {
-        if (playerResult == null) {
+    public void showCachedStats(PlayerStats cachedStats, int[] levels) {
+        if (stats != null && stats.getTimestamp() >= cachedStats.getTimestamp()) {
             return;
         }
 
-        for (Map.Entry<HiscoreSkill, JLabel> entry : skillToLabel.entrySet()) {
-            HiscoreSkill skill = entry.getKey();
-            JLabel label = entry.getValue();
+        showStats(cachedStats, levels);
+        statusLabel.setText("Updated " + formatAge(System.currentTimeMillis() - cachedStats.getTimestamp()));
+        statusLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        statusLabel.setVisible(true);
+    }
 
-            if (label == null) {
-                continue;
-            }
+    /**
+     * Returns the stats currently shown in the panel, or null if there are none.
+     */
+    public PlayerStats getStats() {
+        return stats;
+    }
 
-            Skill resultSkill;
+    /**
+     * Shows the given stats, only touching the cells whose level or experience changed since the stats that were
+     * shown before. Tooltips are built lazily when they are first hovered.
+     */
+    private void showStats(PlayerStats playerStats, int[] playerLevels) {
+        final PlayerStats previousStats = stats;
+        final boolean showLevels = xpGainedPeriod == XpGainedPeriod.OFF;
+        stats = playerStats;
+        levels = playerLevels;
+        activitiesPanel.setStats(playerStats);
+
+        for (int cell = 0; cell < skillGrid.getCellCount(); cell++) {
+            HiscoreSkill skill = skillGrid.getSkill(cell);
 
             if (skill == null) {
-                int combatLevel = Experience.getCombatLevel(
-                        playerResult.getSkill(ATTACK).getLevel(),
-                        playerResult.getSkill(STRENGTH).getLevel(),
-                        playerResult.getSkill(DEFENCE).getLevel(),
-                        playerResult.getSkill(HITPOINTS).getLevel(),
-                        playerResult.getSkill(MAGIC).getLevel(),
-                        playerResult.getSkill(RANGED).getLevel(),
-                        playerResult.getSkill(PRAYER).getLevel()
-                );
-                label.setText(Integer.toString(combatLevel));
-            } else if ((resultSkill = playerResult.getSkill(skill)) != null) {
-                final long experience = resultSkill.getExperience();
-                if (experience > -1 && skill.getType() == HiscoreSkillType.SKILL) {
-                    label.setText(String.valueOf(Experience.getLevelForXp((int) experience)));
-                } else {
-                    label.setText(String.valueOf(resultSkill.getLevel()));
+                boolean changed = false;
+                for (HiscoreSkill combatSkill : COMBAT_SKILLS) {
+                    changed |= hasSkillChanged(previousStats, playerStats, combatSkill);
+                }
+                if (changed) {
+                    if (showLevels) {
+                        skillGrid.setText(cell, getLevelText(skill));
+                    }
+                    skillGrid.invalidateTooltip(cell);
                 }
+                continue;
+            }
+
+            if (hasSkillChanged(previousStats, playerStats, skill)) {
+                if (showLevels && playerStats.hasSkill(skill)) {
+                    skillGrid.setText(cell, getLevelText(skill));
+                }
+                skillGrid.invalidateTooltip(cell);
+            } else if (previousStats.getRank(skill) != playerStats.getRank(skill)) {
+                // The rank is only shown in the tooltip.
+                skillGrid.invalidateTooltip(cell);
+            }
+        }
+
+        if (!showLevels) {
+            refreshXpGained();
+        }
+    }
+
+    /**
+     * Sets whether the hiscore lookups include bosses and activities, which are only shown if they do.
+     *
+     * @param available Whether bosses and activities are being looked up.
+     */
+    public void setActivitiesAvailable(boolean available) {
+        activitiesPanel.setAvailable(available);
+    }
+
+    /**
+     * Switches between showing levels and showing the XP gained over a period.
+     *
+     * @param xpHistory      The history to read the XP gained from.
+     * @param xpGainedPeriod The period to show the XP gained over, or {@link XpGainedPeriod#OFF} to show levels.
+     */
+    public void setXpGainedView(XpHistoryStore xpHistory, XpGainedPeriod xpGainedPeriod) {
+        this.xpHistory = xpHistory;
+        this.xpGainedPeriod = xpGainedPeriod;
+        refreshXpGained();
+    }
+
+    /**
+     * Re-reads the XP gained from the history, or shows the levels again if the XP gained isn't being shown.
+     */
+    public void refreshXpGained() {
+        final boolean showLevels = xpGainedPeriod == XpGainedPeriod.OFF || xpHistory == null;
+        if (!showLevels) {
+            xpHistory.getXpGainedSince(username, System.currentTimeMillis() - xpGainedPeriod.getMillis(), xpGained);
+        }
+
+        for (int cell = 0; cell < skillGrid.getCellCount(); cell++) {
+            HiscoreSkill skill = skillGrid.getSkill(cell);
+            if (stats == null || (skill != null && !stats.hasSkill(skill))) {
+                continue;
+            }
+            skillGrid.setText(cell, showLevels ? getLevelText(skill) : getXpGainedText(skill));
+            skillGrid.invalidateTooltip(cell);
+        }
+    }
+
+    private String getLevelText(HiscoreSkill skill) {
+        return Integer.toString(levels[skill == null ? COMBAT_LEVEL_INDEX : skill.ordinal()]);
+    }
+
+    /**
+     * Computes the levels shown for the player's hiscores, so that it can be done off the EDT.
+     *
+     * @return The level of each skill, using virtual levels above 99, indexed by {@link HiscoreSkill#ordinal()},
+     * followed by the combat level.
+     */
+    static int[] computeLevels(PlayerStats playerStats) {
+        int[] levels = new int[COMBAT_LEVEL_INDEX + 1];
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            final long experience = playerStats.getExperience(skill);
+            if (experience > -1 && skill.getType() == HiscoreSkillType.SKILL) {
+                levels[skill.ordinal()] = Experience.getLevelForXp((int) experience);
+            } else {
+                levels[skill.ordinal()] = playerStats.getLevel(skill);
             }
+        }
+        levels[COMBAT_LEVEL_INDEX] = getCombatLevel(playerStats);
+        return levels;
+    }
+
+    private String getXpGainedText(HiscoreSkill skill) {
+        long gained = getXpGained(skill);
+        return gained > 0 ? "+" + QuantityFormatter.quantityToStackSize(gained) : "0";
+    }
+
+    /**
+     * Returns the XP gained in a skill over the period being shown, or the combat XP gained if the skill is null.
+     */
+    private long getXpGained(HiscoreSkill skill) {
+        if (skill != null) {
+            return xpGained[skill.ordinal()];
+        }
+        long gained = 0;
+        for (HiscoreSkill combatSkill : COMBAT_SKILLS) {
+            gained += xpGained[combatSkill.ordinal()];
+        }
+        return gained;
+    }
+
+    private static boolean hasSkillChanged(PlayerStats previousStats, PlayerStats playerStats, HiscoreSkill skill) {
+        return previousStats == null
+                || previousStats.getLevel(skill) != playerStats.getLevel(skill)
+                || previousStats.getExperience(skill) != playerStats.getExperience(skill);
+    }
+
+    /**
+     * Calculates the combat level from the player's hiscores.
+     */
+    static int getCombatLevel(PlayerStats playerStats) {
+        return Experience.getCombatLevel(
+                playerStats.getLevel(ATTACK),
+                playerStats.getLevel(STRENGTH),
+                playerStats.getLevel(DEFENCE),
+                playerStats.getLevel(HITPOINTS),
+                playerStats.getLevel(MAGIC),
+                playerStats.getLevel(RANGED),
+                playerStats.getLevel(PRAYER)
+        );
+    }
 
-            label.setToolTipText(buildSkillPanelTooltip(playerResult, skill));
+    /**
+     * Formats the age of a snapshot in a human readable way, e.g. "3 hours ago".
+     */
+    private static String formatAge(long ageMillis) {
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(ageMillis);
+        if (minutes < 1) {
+            return "just now";
+        }
+        if (minutes < 60) {
+            return minutes + (minutes == 1 ? " minute ago" : " minutes ago");
         }
+        long hours = minutes / 60;
+        if (hours < 24) {
+            return hours + (hours == 1 ? " hour ago" : " hours ago");
+        }
+        long days = hours / 24;
+        return days + (days == 1 ? " day ago" : " days ago");
     }
 
     /**
@@ -112,6 +346,9 @@ public class PlayerStatsPanel extends JPanel {
      * @param username The name of the player to show in this stats panel.
      */
     public void setPlayer(String username) {
+        if (!Objects.equals(this.username, username)) {
+            clearStats();
+        }
         this.username = username;
         usernameLabel.setText(this.username);
         if (username == null || username.isEmpty()) {
@@ -143,86 +380,75 @@ public class PlayerStatsPanel extends JPanel {
         add(usernamePanel, constraints);
         constraints.gridy++;
 
-        JPanel statsPanel = new JPanel();
-        statsPanel.setLayout(new GridLayout(8, 3));
-        statsPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
-        for (HiscoreSkill skill : SKILLS) {
-            statsPanel.add(buildSkillPanel(skill));
-        }
-        add(statsPanel, constraints);
+        JPanel statusPanel = new JPanel();
+        statusPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        statusLabel = new JLabel();
+        statusLabel.setFont(FontManager.getRunescapeSmallFont());
+        statusLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        statusLabel.setVisible(false);
+        statusPanel.add(statusLabel);
+        add(statusPanel, constraints);
         constraints.gridy++;
 
-        JPanel summaryStatsPanel = new JPanel();
-        summaryStatsPanel.setLayout(new GridLayout(1, 2));
-        summaryStatsPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
-        summaryStatsPanel.add(buildSkillPanel(null));
-        summaryStatsPanel.add(buildSkillPanel(OVERALL));
-        add(summaryStatsPanel, constraints);
+        skillGrid = new SkillGrid(GRID_SKILLS, 3, this::getSkillTooltip);
+        add(skillGrid, constraints);
+        constraints.gridy++;
+
+        activitiesPanel = new ActivitiesPanel();
+        add(activitiesPanel, constraints);
         constraints.gridy++;
 
         setVisible(false);
     }
 
     /**
-     * Builds the JPanel to display a single skill for the player.
+     * Returns the tooltip for a cell of the skill grid, which is just the name of the skill until there are stats.
      */
-    private JPanel buildSkillPanel(HiscoreSkill skill) {
-        JPanel panel = new JPanel();
-        panel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
-
-        String skillName = (skill == null ? "combat" : skill.name().toLowerCase());
-
-        JLabel label = new JLabel();
-        label.setIcon(new ImageIcon(ImageUtil.loadImageResource(RuneLite.class, "/skill_icons_small/" + skillName + ".png")));
-        label.setText("-");
-        label.setIconTextGap(skill == OVERALL || skill == null ? 10 : 4);
-        label.setToolTipText(skill == null ? "Combat" : skill.getName());
-        skillToLabel.put(skill, label);
-        panel.add(label);
-
-        return panel;
+    private String getSkillTooltip(HiscoreSkill skill) {
+        if (stats == null) {
+            return skill == null ? "Combat" : skill.getName();
+        }
+        return buildSkillPanelTooltip(stats, skill);
     }
 
     /**
      * Builds an HTML tooltip for a single skill in the panel.
      * This logic is taken from the builtin Hiscore plugin.
      *
-     * @param playerResult     The hiscore result for the player.
+     * @param playerStats      The hiscores for the player.
      * @param skill            The skill to build the tooltip for.
      */
-    private String buildSkillPanelTooltip(HiscoreResult playerResult, HiscoreSkill skill) {
+    String buildSkillPanelTooltip(PlayerStats playerStats, HiscoreSkill skill) {
         StringBuilder builder = new StringBuilder();
         builder.append("<html><body style = 'padding: 5px;color:#989898'>");
 
         if (skill == null) {
             double combatLevel = Experience.getCombatLevelPrecise(
-                    playerResult.getSkill(ATTACK).getLevel(),
-                    playerResult.getSkill(STRENGTH).getLevel(),
-                    playerResult.getSkill(DEFENCE).getLevel(),
-                    playerResult.getSkill(HITPOINTS).getLevel(),
-                    playerResult.getSkill(MAGIC).getLevel(),
-                    playerResult.getSkill(RANGED).getLevel(),
-                    playerResult.getSkill(PRAYER).getLevel()
+                    playerStats.getLevel(ATTACK),
+                    playerStats.getLevel(STRENGTH),
+                    playerStats.getLevel(DEFENCE),
+                    playerStats.getLevel(HITPOINTS),
+                    playerStats.getLevel(MAGIC),
+                    playerStats.getLevel(RANGED),
+                    playerStats.getLevel(PRAYER)
             );
-            double combatExperience = playerResult.getSkill(ATTACK).getExperience()
-                    + playerResult.getSkill(STRENGTH).getExperience() + playerResult.getSkill(DEFENCE).getExperience()
-                    + playerResult.getSkill(HITPOINTS).getExperience() + playerResult.getSkill(MAGIC).getExperience()
-                    + playerResult.getSkill(RANGED).getExperience() + playerResult.getSkill(PRAYER).getExperience();
+            double combatExperience = playerStats.getExperience(ATTACK)
+                    + playerStats.getExperience(STRENGTH) + playerStats.getExperience(DEFENCE)
+                    + playerStats.getExperience(HITPOINTS) + playerStats.getExperience(MAGIC)
+                    + playerStats.getExperience(RANGED) + playerStats.getExperience(PRAYER);
             builder.append("<p><span style = 'color:white'>Combat</span></p>");
             builder.append("<p><span style = 'color:white'>Exact Combat Level:</span> " + QuantityFormatter.formatNumber(combatLevel) + "</p>");
             builder.append("<p><span style = 'color:white'>Experience:</span> " + QuantityFormatter.formatNumber(combatExperience) + "</p>");
         } else if (skill == HiscoreSkill.OVERALL) {
-            Skill overallSkill = playerResult.getSkill(skill);
-            String rank = (overallSkill.getRank() == -1) ? "Unranked" : QuantityFormatter.formatNumber(overallSkill.getRank());
-            String exp = (overallSkill.getExperience() == -1L) ? "Unranked" : QuantityFormatter.formatNumber(overallSkill.getExperience());
+            String rank = (playerStats.getRank(skill) == -1) ? "Unranked" : QuantityFormatter.formatNumber(playerStats.getRank(skill));
+            String exp = (playerStats.getExperience(skill) == -1L) ? "Unranked" : QuantityFormatter.formatNumber(playerStats.getExperience(skill));
             builder.append("<p><span style = 'color:white'>" + skill.getName() + "</span></p>");
             builder.append("<p><span style = 'color:white'>Rank:</span> " + rank + "</p>");
             builder.append("<p><span style = 'color:white'>Experience:</span> " + exp + "</p>");
         } else {
-            Skill requestedSkill = playerResult.getSkill(skill);
-            final long experience = requestedSkill.getExperience();
+            final long experience = playerStats.getExperience(skill);
 
-            String rank = (requestedSkill.getRank() == -1) ? "Unranked" : QuantityFormatter.formatNumber(requestedSkill.getRank());
+            String rank = (playerStats.getRank(skill) == -1) ? "Unranked" : QuantityFormatter.formatNumber(playerStats.getRank(skill));
             String exp = (experience == -1L) ? "Unranked" : QuantityFormatter.formatNumber(experience);
             String remainingXp;
             if (experience == -1L) {
@@ -238,8 +464,13 @@ public class PlayerStatsPanel extends JPanel {
             builder.append("<p><span style = 'color:white'>Remaining XP:</span> " + remainingXp + "</p>");
         }
 
+        if (xpGainedPeriod != XpGainedPeriod.OFF && xpHistory != null && (skill == null || XpHistoryStore.isTracked(skill))) {
+            builder.append("<p><span style = 'color:white'>Gained in the last " + xpGainedPeriod.toString().toLowerCase() + ":</span> "
+                    + QuantityFormatter.formatNumber(getXpGained(skill)) + "</p>");
+        }
+
         if (skill != null && skill.getType() == HiscoreSkillType.SKILL) {
-            long experience = playerResult.getSkill(skill).getExperience();
+            long experience = playerStats.getExperience(skill);
             if (experience >= 0) {
                 int currentXp = (int) experience;
                 int currentLevel = Experience.getLevelForXp(currentXp);
@@ -0,0 +1,427 @@
+package com.groupironpanel;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.hiscore.HiscoreEndpoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Shares hiscore results between every client running the plugin on the same machine, through a small file that is
+ * only read and written while holding an exclusive lock on it.
+ * <p>
+ * Before looking a player up, a client checks the file. A result fetched by any client within the last
+ * {@link #FRESHNESS_MILLIS} is used as is. Otherwise the client takes a lease on the player and fetches them itself,
+ * then publishes the result for the others. Clients that find another client's lease wait for its result instead of
+ * making the same request, and take over once the lease runs out. With a main account and alts in the same group, the
+ * group is then looked up once per freshness window however many clients are open.
+ * <p>
+ * Fresh lookups, made when a player's stats are known to have changed, skip the results already in the file. They
+ * still respect another client's lease, but only take the result it publishes if its fetch started after they did.
+ * <p>
+ * All file access happens on the given executor.
+ */
+@Slf4j
+public class SharedHiscoreCache {
+    static final long FRESHNESS_MILLIS = TimeUnit.SECONDS.toMillis(HiscoreHttpCache.FRESHNESS_SECONDS);
+
+    /**
+     * How long a client may take to fetch a player before the other clients stop waiting for it.
+     */
+    private static final long LEASE_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final long POLL_MILLIS = 250;
+
+    /**
+     * Results older than this are dropped from the file whenever it is written.
+     */
+    private static final long RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final int MAGIC = 0x47495043;
+
+    private static final int VERSION = 1;
+
+    private final File file;
+
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Identifies this client's leases in the file. Never 0, which marks an entry that nobody holds the lease on.
+     */
+    private final long instanceId = new Random().nextLong() | 1;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong fetchCount = new AtomicLong();
+
+    private final Object waitingLock = new Object();
+
+    /**
+     * The lookups waiting for another client's result, with the check scheduled for each. Only accessed with
+     * {@link #waitingLock} held.
+     */
+    private final Map<CompletableFuture<PlayerStats>, ScheduledFuture<?>> waitingLookups = new HashMap<>();
+
+    private boolean closed;
+
+    /**
+     * @param file     The file shared between clients.
+     * @param executor The executor to access the file on.
+     */
+    public SharedHiscoreCache(File file, ScheduledExecutorService executor) {
+        this.file = file;
+        this.executor = executor;
+    }
+
+    /**
+     * Looks up the hiscores for a player, using a result published by another client if there is a fresh one.
+     *
+     * @param player   The standardized name of the player.
+     * @param endpoint   The hiscore endpoint to look the player up on.
+     * @param skillsOnly Whether the lookup only reads the skills, in which case its results are kept apart from those
+     *                   of full lookups.
+     * @param fresh      Whether to ignore the results published before this lookup started.
+     * @param fetch      Fetches the player's hiscores when this client has to look them up itself.
+     * @return A future that completes with the player's hiscores, or with null if the player could not be found.
+     */
+    public CompletableFuture<PlayerStats> lookup(String player, HiscoreEndpoint endpoint, boolean skillsOnly, boolean fresh,
+                                                 Supplier<CompletableFuture<PlayerStats>> fetch) {
+        final String key = endpoint.name() + (skillsOnly ? ":skills:" : ":") + player;
+        final long notBefore = fresh ? System.currentTimeMillis() : 0;
+        final CompletableFuture<PlayerStats> result = new CompletableFuture<>();
+        executor.execute(() -> attempt(key, notBefore, fetch, result));
+        return result;
+    }
+
+    /**
+     * Returns the number of lookups answered with a result from the file.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups this client made itself and published.
+     */
+    public long getFetchCount() {
+        return fetchCount.get();
+    }
+
+    /**
+     * Stops waiting for other clients. Lookups that are still waiting are cancelled, and this client's leases are left
+     * to run out.
+     */
+    public void close() {
+        List<CompletableFuture<PlayerStats>> cancelledLookups;
+        synchronized (waitingLock) {
+            closed = true;
+            for (ScheduledFuture<?> check : waitingLookups.values()) {
+                check.cancel(false);
+            }
+            cancelledLookups = new ArrayList<>(waitingLookups.keySet());
+            waitingLookups.clear();
+        }
+        for (CompletableFuture<PlayerStats> lookup : cancelledLookups) {
+            lookup.completeExceptionally(new CancellationException());
+        }
+    }
+
+    private void attempt(String key, long notBefore, Supplier<CompletableFuture<PlayerStats>> fetch,
+                         CompletableFuture<PlayerStats> result) {
+        synchronized (waitingLock) {
+            waitingLookups.remove(result);
+            if (closed) {
+                result.completeExceptionally(new CancellationException());
+                return;
+            }
+        }
+        if (result.isDone()) {
+            return;
+        }
+
+        final Claim claim;
+        try {
+            claim = claim(key, notBefore);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unable to read the shared hiscore cache, looking up {} directly", key, e);
+            forward(fetch, result);
+            return;
+        }
+
+        switch (claim.state) {
+            case FRESH:
+                hitCount.incrementAndGet();
+                result.complete(claim.stats);
+                break;
+            case LEASED:
+                // Another client is fetching the player. Check again shortly, and take over if its lease runs out.
+                synchronized (waitingLock) {
+                    if (!closed) {
+                        waitingLookups.put(result, executor.schedule(() -> attempt(key, notBefore, fetch, result), POLL_MILLIS, TimeUnit.MILLISECONDS));
+                        break;
+                    }
+                }
+                result.completeExceptionally(new CancellationException());
+                break;
+            case CLAIMED:
+                final long fetchedAt = System.currentTimeMillis();
+                fetchCount.incrementAndGet();
+                forward(fetch, result);
+                result.whenComplete((stats, ex) -> executor.execute(() -> publish(key, stats, ex == null, fetchedAt)));
+                break;
+        }
+    }
+
+    private static void forward(Supplier<CompletableFuture<PlayerStats>> fetch, CompletableFuture<PlayerStats> result) {
+        fetch.get().whenComplete((stats, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            } else {
+                result.complete(stats);
+            }
+        });
+    }
+
+    /**
+     * Returns a fresh result for the player if there is one, and otherwise takes the lease on them unless another
+     * client holds it.
+     *
+     * @param notBefore The time before which results are not used however fresh they are, or 0 to use any.
+     */
+    private synchronized Claim claim(String key, long notBefore) throws IOException {
+        final long now = System.currentTimeMillis();
+        return update(entries -> {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.fetchedAt > now - FRESHNESS_MILLIS && entry.fetchedAt >= notBefore) {
+                return new Claim(ClaimState.FRESH, entry.stats);
+            }
+            if (entry != null && entry.leaseOwner != instanceId && entry.leaseExpiresAt > now) {
+                return new Claim(ClaimState.LEASED, null);
+            }
+
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(key, entry);
+            }
+            entry.leaseOwner = instanceId;
+            entry.leaseExpiresAt = now + LEASE_MILLIS;
+            return new Claim(ClaimState.CLAIMED, null);
+        });
+    }
+
+    /**
+     * Publishes the result of a lookup for the other clients, and gives up the lease on the player.
+     *
+     * @param succeeded Whether the lookup succeeded. A failed lookup only gives up the lease, so another client can
+     *                  try straight away.
+     * @param fetchedAt When the lookup was sent. A result is only as recent as its request, so fresh lookups compare
+     *                  against this rather than against when the response arrived.
+     */
+    private synchronized void publish(String key, PlayerStats stats, boolean succeeded, long fetchedAt) {
+        try {
+            update(entries -> {
+                Entry entry = entries.computeIfAbsent(key, k -> new Entry());
+                if (succeeded && fetchedAt >= entry.fetchedAt) {
+                    entry.fetchedAt = fetchedAt;
+                    entry.stats = stats;
+                }
+                if (entry.leaseOwner == instanceId) {
+                    entry.leaseOwner = 0;
+                    entry.leaseExpiresAt = 0;
+                }
+                return null;
+            });
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unable to publish {} to the shared hiscore cache", key, e);
+        }
+    }
+
+    /**
+     * Reads the entries from the file, lets the update change them, and writes them back if anything changed, all
+     * while holding an exclusive lock on the file so that no other client can read or write it in between.
+     */
+    private <T> T update(Update<T> update) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable to create directory " + parent);
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            FileLock lock = channel.lock();
+            try {
+                return update(channel, update);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private static <T> T update(FileChannel channel, Update<T> update) throws IOException {
+        byte[] contents = read(channel);
+        Map<String, Entry> entries = decode(contents);
+        T result = update.apply(entries);
+
+        long now = System.currentTimeMillis();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.fetchedAt < now - RETENTION_MILLIS && entry.leaseExpiresAt < now) {
+                iterator.remove();
+            }
+        }
+        byte[] updatedContents = encode(entries);
+        if (!Arrays.equals(contents, updatedContents)) {
+            write(channel, updatedContents);
+        }
+        return result;
+    }
+
+    private static byte[] read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) != -1) {
+            // Keep reading until the whole file is in the buffer.
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static void write(FileChannel channel, byte[] contents) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(contents);
+        channel.truncate(0);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+    }
+
+    /**
+     * Decodes the entries in the file, keeping them in the order they were written in. A file that can't be decoded is
+     * treated as empty, so that it is rewritten rather than breaking every lookup.
+     */
+    private static Map<String, Entry> decode(byte[] contents) {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        if (contents.length == 0) {
+            return entries;
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(contents));
+        try {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+                log.debug("Ignoring shared hiscore cache with an unknown format");
+                return entries;
+            }
+            while (in.readBoolean()) {
+                String key = in.readUTF();
+                Entry entry = new Entry();
+                entry.fetchedAt = in.readLong();
+                entry.leaseOwner = in.readLong();
+                entry.leaseExpiresAt = in.readLong();
+                entry.stats = HiscoreSnapshotStore.readPlayerStats(in);
+                entries.put(key, entry);
+            }
+        } catch (EOFException e) {
+            // A client died mid-write. Whatever was read is still usable, and the file is rewritten with it.
+            log.debug("Shared hiscore cache is truncated");
+        } catch (IOException | RuntimeException e) {
+            log.debug("Ignoring corrupted shared hiscore cache", e);
+            entries.clear();
+        }
+        return entries;
+    }
+
+    private static byte[] encode(Map<String, Entry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                out.writeBoolean(true);
+                out.writeUTF(mapEntry.getKey());
+                out.writeLong(entry.fetchedAt);
+                out.writeLong(entry.leaseOwner);
+                out.writeLong(entry.leaseExpiresAt);
+                if (entry.stats != null) {
+                    HiscoreSnapshotStore.writePlayerStats(out, entry.stats);
+                } else {
+                    out.writeBoolean(false);
+                }
+            }
+            out.writeBoolean(false);
+        }
+        return bytes.toByteArray();
+    }
+
+    private interface Update<T> {
+        T apply(Map<String, Entry> entries);
+    }
+
+    /**
+     * The latest result for one player and endpoint, along with the lease of the client fetching them, if any.
+     */
+    private static final class Entry {
+        /**
+         * When the lookup for the result was sent, or 0 if there is none yet.
+         */
+        private long fetchedAt;
+
+        /**
+         * The player's stats, or null if they aren't on the hiscores.
+         */
+        private PlayerStats stats;
+
+        private long leaseOwner;
+
+        private long leaseExpiresAt;
+    }
+
+    private enum ClaimState {
+        /**
+         * A fresh result is available.
+         */
+        FRESH,
+
+        /**
+         * Another client is fetching the player.
+         */
+        LEASED,
+
+        /**
+         * This client has taken the lease and should fetch the player.
+         */
+        CLAIMED
+    }
+
+    private static final class Claim {
+        private final ClaimState state;
+
+        private final PlayerStats stats;
+
+        private Claim(ClaimState state, PlayerStats stats) {
+            this.state = state;
+            this.stats = stats;
+        }
+    }
+}
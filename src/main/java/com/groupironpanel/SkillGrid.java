@@ -0,0 +1,274 @@
+package com.groupironpanel;
+
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.ui.ColorScheme;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Paints a grid of skill icons and values as a single lightweight component, instead of a panel and label per skill.
+ * <p>
+ * Cells are laid out in rows of a fixed number of columns, and a final partial row is split evenly between the cells
+ * left over. Only the cells whose text changes are repainted, the cell under the mouse is highlighted, and tooltips
+ * are found by hit-testing the mouse position and built lazily the first time each cell is hovered.
+ */
+class SkillGrid extends JComponent {
+    private static final int CELL_PADDING = 5;
+
+    private static final int ICON_TEXT_GAP = 4;
+
+    private static final int SUMMARY_ICON_TEXT_GAP = 10;
+
+    /**
+     * The widest text a skill cell is expected to show, used to work out the preferred width of the grid.
+     */
+    private static final String WIDEST_TEXT = "+999.9K";
+
+    private final HiscoreSkill[] skills;
+
+    private final ImageIcon[] icons;
+
+    private final String[] texts;
+
+    private final String[] tooltips;
+
+    /**
+     * The cell of each skill, indexed by {@link HiscoreSkill#ordinal()}, or -1 if the skill is not in the grid.
+     */
+    private final int[] skillCells = new int[PlayerStats.HISCORE_SKILLS.length];
+
+    private final int combatCell;
+
+    private final int columns;
+
+    private final Function<HiscoreSkill, String> tooltipBuilder;
+
+    private int hoveredCell = -1;
+
+    /**
+     * @param skills         The skill of each cell, in order, with null standing for the combat level.
+     * @param columns        The number of cells in each row.
+     * @param tooltipBuilder Builds the tooltip for a skill, or the combat level if the skill is null.
+     */
+    SkillGrid(List<HiscoreSkill> skills, int columns, Function<HiscoreSkill, String> tooltipBuilder) {
+        this.skills = skills.toArray(new HiscoreSkill[0]);
+        this.columns = columns;
+        this.tooltipBuilder = tooltipBuilder;
+
+        icons = new ImageIcon[this.skills.length];
+        texts = new String[this.skills.length];
+        tooltips = new String[this.skills.length];
+        Arrays.fill(texts, "-");
+        Arrays.fill(skillCells, -1);
+
+        int combat = -1;
+        for (int cell = 0; cell < this.skills.length; cell++) {
+            HiscoreSkill skill = this.skills[cell];
+            icons[cell] = SkillIconCache.getSkillIcon(skill);
+            if (skill == null) {
+                combat = cell;
+            } else {
+                skillCells[skill.ordinal()] = cell;
+            }
+        }
+        combatCell = combat;
+
+        setOpaque(true);
+        setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        setFont(UIManager.getFont("Label.font"));
+        setForeground(UIManager.getColor("Label.foreground"));
+        ToolTipManager.sharedInstance().registerComponent(this);
+
+        MouseAdapter mouseListener = new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                setHoveredCell(getCellAt(e.getX(), e.getY()));
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setHoveredCell(-1);
+            }
+        };
+        addMouseListener(mouseListener);
+        addMouseMotionListener(mouseListener);
+    }
+
+    /**
+     * Returns the number of cells in the grid.
+     */
+    int getCellCount() {
+        return skills.length;
+    }
+
+    /**
+     * Returns the skill shown in a cell, or null if the cell shows the combat level.
+     */
+    HiscoreSkill getSkill(int cell) {
+        return skills[cell];
+    }
+
+    /**
+     * Returns the cell showing a skill, or the combat level if the skill is null, or -1 if it is not in the grid.
+     */
+    int getCell(HiscoreSkill skill) {
+        return skill == null ? combatCell : skillCells[skill.ordinal()];
+    }
+
+    /**
+     * Sets the text of a cell, repainting just that cell if the text changed.
+     */
+    void setText(int cell, String text) {
+        if (!text.equals(texts[cell])) {
+            texts[cell] = text;
+            repaint(getCellBounds(cell));
+        }
+    }
+
+    /**
+     * Discards the tooltip of a cell so that it is rebuilt the next time it is shown.
+     */
+    void invalidateTooltip(int cell) {
+        tooltips[cell] = null;
+    }
+
+    /**
+     * Resets every cell to show no value.
+     */
+    void clear() {
+        for (int cell = 0; cell < skills.length; cell++) {
+            setText(cell, "-");
+            invalidateTooltip(cell);
+        }
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        int cell = getCellAt(event.getX(), event.getY());
+        if (cell == -1) {
+            return null;
+        }
+        if (tooltips[cell] == null) {
+            tooltips[cell] = tooltipBuilder.apply(skills[cell]);
+        }
+        return tooltips[cell];
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        FontMetrics fontMetrics = getFontMetrics(getFont());
+        int cellWidth = 0;
+        for (ImageIcon icon : icons) {
+            cellWidth = Math.max(cellWidth, icon.getIconWidth());
+        }
+        cellWidth += ICON_TEXT_GAP + fontMetrics.stringWidth(WIDEST_TEXT) + 2 * CELL_PADDING;
+        return new Dimension(columns * cellWidth, getRowCount() * getRowHeight());
+    }
+
+    @Override
+    public Dimension getMinimumSize() {
+        if (isMinimumSizeSet()) {
+            return super.getMinimumSize();
+        }
+        // The cells shrink to fit the sidebar, but every row must stay visible.
+        return new Dimension(0, getRowCount() * getRowHeight());
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+
+        Rectangle clip = g.getClipBounds();
+        FontMetrics fontMetrics = g.getFontMetrics(getFont());
+        g.setFont(getFont());
+
+        for (int cell = 0; cell < skills.length; cell++) {
+            Rectangle bounds = getCellBounds(cell);
+            if (clip != null && !clip.intersects(bounds)) {
+                continue;
+            }
+
+            if (cell == hoveredCell) {
+                g.setColor(ColorScheme.DARK_GRAY_HOVER_COLOR);
+                g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+            }
+
+            ImageIcon icon = icons[cell];
+            String text = texts[cell];
+            int gap = isSummaryCell(cell) ? SUMMARY_ICON_TEXT_GAP : ICON_TEXT_GAP;
+            int contentWidth = icon.getIconWidth() + gap + fontMetrics.stringWidth(text);
+            int x = bounds.x + (bounds.width - contentWidth) / 2;
+            int centerY = bounds.y + bounds.height / 2;
+
+            icon.paintIcon(this, g, x, centerY - icon.getIconHeight() / 2);
+            g.setColor(getForeground());
+            g.drawString(text, x + icon.getIconWidth() + gap,
+                    centerY - (fontMetrics.getAscent() + fontMetrics.getDescent()) / 2 + fontMetrics.getAscent());
+        }
+    }
+
+    private void setHoveredCell(int cell) {
+        if (cell == hoveredCell) {
+            return;
+        }
+        if (hoveredCell != -1) {
+            repaint(getCellBounds(hoveredCell));
+        }
+        hoveredCell = cell;
+        if (cell != -1) {
+            repaint(getCellBounds(cell));
+        }
+    }
+
+    /**
+     * Returns whether a cell is in the final partial row, which is split between fewer cells.
+     */
+    private boolean isSummaryCell(int cell) {
+        return cell >= skills.length - skills.length % columns;
+    }
+
+    private int getRowCount() {
+        return (skills.length + columns - 1) / columns;
+    }
+
+    private int getRowHeight() {
+        int iconHeight = 0;
+        for (ImageIcon icon : icons) {
+            iconHeight = Math.max(iconHeight, icon.getIconHeight());
+        }
+        return Math.max(iconHeight, getFontMetrics(getFont()).getHeight()) + 2 * CELL_PADDING;
+    }
+
+    private Rectangle getCellBounds(int cell) {
+        int row = cell / columns;
+        int rowHeight = getRowHeight();
+        int cellsInRow = isSummaryCell(cell) ? skills.length % columns : columns;
+        int column = cell - row * columns;
+        int x = column * getWidth() / cellsInRow;
+        int nextX = (column + 1) * getWidth() / cellsInRow;
+        return new Rectangle(x, row * rowHeight, nextX - x, rowHeight);
+    }
+
+    private int getCellAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= getWidth()) {
+            return -1;
+        }
+        int row = y / getRowHeight();
+        if (row >= getRowCount()) {
+            return -1;
+        }
+        int firstCell = row * columns;
+        int cellsInRow = isSummaryCell(firstCell) ? skills.length % columns : columns;
+        return firstCell + x * cellsInRow / getWidth();
+    }
+}
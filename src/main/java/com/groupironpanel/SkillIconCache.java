@@ -0,0 +1,61 @@
+package com.groupironpanel;
+
+import net.runelite.client.RuneLite;
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.util.ImageUtil;
+
+import javax.swing.ImageIcon;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Decodes the icons used by the panel once and shares them between every panel in the process.
+ */
+public final class SkillIconCache {
+    private static final Map<HiscoreSkill, ImageIcon> SKILL_ICONS = new EnumMap<>(HiscoreSkill.class);
+
+    private static ImageIcon combatIcon;
+
+    private static ImageIcon refreshIcon;
+
+    private SkillIconCache() {
+    }
+
+    /**
+     * Returns the small icon for a skill.
+     *
+     * @param skill The skill, or null for the combat icon.
+     */
+    public static synchronized ImageIcon getSkillIcon(HiscoreSkill skill) {
+        if (skill == null) {
+            if (combatIcon == null) {
+                combatIcon = loadSkillIcon("combat");
+            }
+            return combatIcon;
+        }
+        return SKILL_ICONS.computeIfAbsent(skill, s -> loadSkillIcon(s.name().toLowerCase()));
+    }
+
+    /**
+     * Returns the icon for the refresh button.
+     */
+    public static synchronized ImageIcon getRefreshIcon() {
+        if (refreshIcon == null) {
+            refreshIcon = new ImageIcon(ImageUtil.loadImageResource(SkillIconCache.class, "/Refresh.png"));
+        }
+        return refreshIcon;
+    }
+
+    /**
+     * Drops every decoded icon, so that their images can be reclaimed while the plugin is stopped.
+     */
+    public static synchronized void clear() {
+        SKILL_ICONS.clear();
+        combatIcon = null;
+        refreshIcon = null;
+    }
+
+    private static ImageIcon loadSkillIcon(String skillName) {
+        return new ImageIcon(ImageUtil.loadImageResource(RuneLite.class, "/skill_icons_small/" + skillName + ".png"));
+    }
+}
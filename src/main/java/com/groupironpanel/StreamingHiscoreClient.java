@@ -0,0 +1,145 @@
+package com.groupironpanel;
+
+import net.runelite.client.hiscore.HiscoreEndpoint;
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.hiscore.HiscoreSkillType;
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Looks up hiscores from the hiscores' CSV endpoint, streaming the response straight into {@link PlayerStats}.
+ * <p>
+ * Unlike {@link net.runelite.client.hiscore.HiscoreClient}, no object is created for each skill, boss and activity.
+ * The numbers are read directly out of the response buffer into the primitive arrays of the stats, and the response
+ * is closed as soon as the skills have been read, so the boss and activity sections are never parsed and are left
+ * empty in the stats.
+ */
+public class StreamingHiscoreClient {
+    private static final String CSV_ENDPOINT = "index_lite.ws";
+
+    /**
+     * The number of lines at the start of the response that hold the skills. The CSV lists the overall level and
+     * skills first, in the same order as {@link HiscoreSkill}, followed by the bosses and activities.
+     */
+    private static final int SKILL_LINE_COUNT;
+
+    static {
+        int count = 0;
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            if (skill.getType() == HiscoreSkillType.SKILL || skill.getType() == HiscoreSkillType.OVERALL) {
+                count = skill.ordinal() + 1;
+            }
+        }
+        SKILL_LINE_COUNT = count;
+    }
+
+    private final OkHttpClient client;
+
+    public StreamingHiscoreClient(OkHttpClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Looks up the hiscores for a player.
+     *
+     * @return A future that completes with the player's stats, or null if the player is not on the hiscores.
+     */
+    public CompletableFuture<PlayerStats> lookupAsync(String username, HiscoreEndpoint endpoint) {
+        return lookupAsync(username, endpoint, false);
+    }
+
+    /**
+     * Looks up the hiscores for a player.
+     *
+     * @param fresh Whether to bypass the HTTP cache and fetch the player from the hiscores.
+     * @return A future that completes with the player's stats, or null if the player is not on the hiscores.
+     */
+    public CompletableFuture<PlayerStats> lookupAsync(String username, HiscoreEndpoint endpoint, boolean fresh) {
+        HttpUrl endpointUrl = endpoint.getHiscoreURL();
+        HttpUrl url = endpointUrl.newBuilder()
+                .setPathSegment(endpointUrl.pathSize() - 1, CSV_ENDPOINT)
+                .addQueryParameter("player", username)
+                .build();
+        Request.Builder request = new Request.Builder()
+                .url(url);
+        if (fresh) {
+            request.cacheControl(CacheControl.FORCE_NETWORK);
+        }
+
+        CompletableFuture<PlayerStats> future = new CompletableFuture<>();
+        client.newCall(request.build()).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (Response r = response) {
+                    if (r.code() == 404) {
+                        future.complete(null);
+                    } else if (!r.isSuccessful()) {
+                        throw new IOException("Error looking up hiscores: " + r.code());
+                    } else {
+                        future.complete(parse(username, System.currentTimeMillis(), r.body().source()));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Reads the skills from a CSV hiscore response, leaving the rest of the response unread.
+     *
+     * @param player    The name of the player the response is for.
+     * @param timestamp The time at which the response was fetched, in milliseconds since the epoch.
+     * @param source    The response body.
+     */
+    static PlayerStats parse(String player, long timestamp, BufferedSource source) throws IOException {
+        int[] ranks = PlayerStats.emptyInts();
+        int[] levels = PlayerStats.emptyInts();
+        long[] experience = PlayerStats.emptyLongs();
+
+        for (int i = 0; i < SKILL_LINE_COUNT && !source.exhausted(); i++) {
+            ranks[i] = (int) source.readDecimalLong();
+            expect(source, ',');
+            levels[i] = (int) source.readDecimalLong();
+            expect(source, ',');
+            experience[i] = source.readDecimalLong();
+            expectLineEnd(source);
+        }
+        return new PlayerStats(player, timestamp, ranks, levels, experience);
+    }
+
+    private static void expect(BufferedSource source, char expected) throws IOException {
+        byte b = source.readByte();
+        if (b != expected) {
+            throw new IOException("Unexpected character in hiscore response: " + (char) b);
+        }
+    }
+
+    private static void expectLineEnd(BufferedSource source) throws IOException {
+        if (source.exhausted()) {
+            return;
+        }
+        byte b = source.readByte();
+        if (b == '\r' && !source.exhausted()) {
+            b = source.readByte();
+        }
+        if (b != '\n') {
+            throw new IOException("Unexpected character in hiscore response: " + (char) b);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.groupironpanel;
+
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+import net.runelite.client.util.QuantityFormatter;
+import net.runelite.client.util.Text;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Shows any number of other groups and players in a scrolling list, with the full stats of the selected player.
+ * <p>
+ * The list is virtualized: every row is painted by a single shared renderer, only the rows scrolled into view are
+ * looked up on the hiscores, and the results are kept in a bounded cache that evicts the players least recently in
+ * view. The cost of the list grows with what is on screen rather than with the number of players in it. Only accessed
+ * on the EDT.
+ */
+class WatchlistPanel extends JPanel {
+    private static final int ROW_HEIGHT = 20;
+
+    private static final int VISIBLE_ROWS = 12;
+
+    private static final int CACHE_SIZE = 200;
+
+    /**
+     * How long to wait for scrolling to settle before looking up the rows in view.
+     */
+    private static final int LOOKUP_DELAY_MILLIS = 250;
+
+    /**
+     * How long a cached result is shown before the row is looked up again when it is next in view.
+     */
+    private static final long STALE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * How long a failed lookup is shown before the row is looked up again.
+     */
+    private static final int RETRY_MILLIS = (int) TimeUnit.SECONDS.toMillis(30);
+
+    private final Function<String, CompletableFuture<PlayerStats>> lookup;
+
+    private final DefaultListModel<Entry> model = new DefaultListModel<>();
+
+    private final JList<Entry> list = new JList<>(model);
+
+    private final PlayerStatsPanel detailPanel = new PlayerStatsPanel();
+
+    private final Timer lookupTimer;
+
+    private final Timer retryTimer;
+
+    /**
+     * The results of recent lookups, keyed by the standardized player name. Entries are kept in the order their rows
+     * were last in view, which only {@link #lookupVisibleRows()} updates, so that painting doesn't reorder them. The
+     * players least recently in view are evicted first.
+     */
+    private final Map<String, CachedStats> cache = new LinkedHashMap<String, CachedStats>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedStats> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final Set<String> pendingLookups = new HashSet<>();
+
+    private String watchlist = "";
+
+    /**
+     * Set once the panel is shut down, after which lookups still in flight are ignored and nothing is looked up.
+     */
+    private boolean shutDown;
+
+    /**
+     * @param lookup Looks up the hiscores of a player.
+     */
+    WatchlistPanel(Function<String, CompletableFuture<PlayerStats>> lookup) {
+        this.lookup = lookup;
+
+        setLayout(new BorderLayout(0, 5));
+        setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        setBorder(new EmptyBorder(5, 0, 5, 0));
+
+        list.setCellRenderer(new EntryRenderer());
+        list.setFixedCellHeight(ROW_HEIGHT);
+        list.setVisibleRowCount(VISIBLE_ROWS);
+        list.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                showSelectedPlayer();
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setBorder(null);
+        scrollPane.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        add(scrollPane, BorderLayout.CENTER);
+
+        detailPanel.setBorder(new EmptyBorder(5, 0, 0, 0));
+        add(detailPanel, BorderLayout.SOUTH);
+
+        lookupTimer = new Timer(LOOKUP_DELAY_MILLIS, e -> lookupVisibleRows());
+        lookupTimer.setRepeats(false);
+        retryTimer = new Timer(RETRY_MILLIS, e -> lookupVisibleRows());
+        retryTimer.setRepeats(false);
+        scrollPane.getViewport().addChangeListener(e -> lookupTimer.restart());
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing()) {
+                lookupTimer.restart();
+            }
+        });
+
+        setVisible(false);
+    }
+
+    /**
+     * Sets the groups and players to show, one group per line written as "Group name: player1, player2".
+     *
+     * @param watchlist The watchlist as configured.
+     */
+    void setWatchlist(String watchlist) {
+        if (watchlist.equals(this.watchlist)) {
+            return;
+        }
+        this.watchlist = watchlist;
+
+        List<Entry> entries = parse(watchlist);
+        list.clearSelection();
+        model.clear();
+        for (Entry entry : entries) {
+            model.addElement(entry);
+        }
+        setVisible(!entries.isEmpty());
+        lookupTimer.restart();
+    }
+
+    /**
+     * Sets whether the hiscore lookups include bosses and activities, which are only shown if they do.
+     */
+    void setActivitiesAvailable(boolean available) {
+        detailPanel.setActivitiesAvailable(available);
+    }
+
+    /**
+     * Stops looking up the players in view and forgets every cached result.
+     */
+    void shutDown() {
+        shutDown = true;
+        lookupTimer.stop();
+        retryTimer.stop();
+        cache.clear();
+        pendingLookups.clear();
+    }
+
+    /**
+     * Parses the configured watchlist into a header row for each named group followed by a row for each player.
+     */
+    static List<Entry> parse(String watchlist) {
+        List<Entry> entries = new ArrayList<>();
+        for (String line : watchlist.split("\n")) {
+            int separator = line.indexOf(':');
+            String group = separator == -1 ? "" : line.substring(0, separator).trim();
+            List<String> players = Text.fromCSV(separator == -1 ? line : line.substring(separator + 1));
+            if (players.isEmpty()) {
+                continue;
+            }
+            if (!group.isEmpty()) {
+                entries.add(new Entry(group, null));
+            }
+            for (String player : players) {
+                entries.add(new Entry(group, player));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Looks up the players in view whose stats are not cached, are stale, or failed to be looked up a while ago.
+     */
+    private void lookupVisibleRows() {
+        int first = list.getFirstVisibleIndex();
+        int last = list.getLastVisibleIndex();
+        if (shutDown || !isShowing() || first == -1) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (int i = first; i <= last; i++) {
+            final String player = model.get(i).player;
+            if (player == null) {
+                continue;
+            }
+            final String key = Text.standardize(player);
+            CachedStats cached = cache.remove(key);
+            if (cached != null) {
+                // Move the player to the end of the cache, since they are in view.
+                cache.put(key, cached);
+            }
+            if (pendingLookups.contains(key) || (cached != null && now - cached.fetchedAt < cached.getMaxAge())) {
+                continue;
+            }
+
+            pendingLookups.add(key);
+            lookup.apply(player).whenComplete((playerStats, ex) -> SwingUtilities.invokeLater(() -> {
+                if (shutDown) {
+                    return;
+                }
+                pendingLookups.remove(key);
+                if (ex != null && unwrap(ex) instanceof CancellationException) {
+                    return;
+                }
+                cache.put(key, new CachedStats(playerStats, ex != null, System.currentTimeMillis()));
+                if (ex != null) {
+                    retryTimer.restart();
+                }
+                list.repaint();
+                Entry selected = list.getSelectedValue();
+                if (selected != null && player.equals(selected.player)) {
+                    showSelectedPlayer();
+                }
+            }));
+        }
+    }
+
+    private void showSelectedPlayer() {
+        Entry selected = list.getSelectedValue();
+        if (selected == null || selected.player == null) {
+            detailPanel.setPlayer(null);
+            revalidate();
+            return;
+        }
+
+        detailPanel.setPlayer(selected.player);
+        CachedStats cached = cache.get(Text.standardize(selected.player));
+        if (cached != null && cached.stats != null) {
+            detailPanel.updateStats(cached.stats);
+        } else if (cached != null) {
+            detailPanel.showLookupFailed(cached.failed ? "Hiscore lookup failed" : "Not found on the hiscores");
+        }
+        revalidate();
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    /**
+     * A row of the watchlist: either the header of a named group, or a player.
+     */
+    static final class Entry {
+        private final String group;
+
+        private final String player;
+
+        Entry(String group, String player) {
+            this.group = group;
+            this.player = player;
+        }
+    }
+
+    private static final class CachedStats {
+        /**
+         * The stats, or null if the player isn't on the hiscores or the lookup failed.
+         */
+        private final PlayerStats stats;
+
+        private final boolean failed;
+
+        private final long fetchedAt;
+
+        private CachedStats(PlayerStats stats, boolean failed, long fetchedAt) {
+            this.stats = stats;
+            this.failed = failed;
+            this.fetchedAt = fetchedAt;
+        }
+
+        /**
+         * Returns how long the result is shown before the player is looked up again.
+         */
+        private long getMaxAge() {
+            return failed ? RETRY_MILLIS : STALE_MILLIS;
+        }
+    }
+
+    /**
+     * Paints every row of the list, showing the player's name and their total level if it has been looked up.
+     */
+    private class EntryRenderer extends JPanel implements ListCellRenderer<Entry> {
+        private final JLabel nameLabel = new JLabel();
+
+        private final JLabel levelLabel = new JLabel();
+
+        EntryRenderer() {
+            setLayout(new BorderLayout());
+            setBorder(new EmptyBorder(0, 5, 0, 5));
+            levelLabel.setFont(FontManager.getRunescapeSmallFont());
+            add(nameLabel, BorderLayout.CENTER);
+            add(levelLabel, BorderLayout.EAST);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Entry> list, Entry entry, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            if (entry.player == null) {
+                nameLabel.setText(entry.group);
+                nameLabel.setForeground(ColorScheme.BRAND_ORANGE);
+                levelLabel.setText("");
+                setBackground(ColorScheme.DARK_GRAY_COLOR);
+                return this;
+            }
+
+            nameLabel.setText(entry.player);
+            nameLabel.setForeground(Color.WHITE);
+            CachedStats cached = cache.get(Text.standardize(entry.player));
+            if (cached == null) {
+                levelLabel.setText("...");
+            } else if (cached.failed) {
+                levelLabel.setText("Failed");
+            } else if (cached.stats == null || cached.stats.getLevel(HiscoreSkill.OVERALL) == -1) {
+                levelLabel.setText("-");
+            } else {
+                levelLabel.setText("Total " + QuantityFormatter.formatNumber(cached.stats.getLevel(HiscoreSkill.OVERALL)));
+            }
+            levelLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+            setBackground(isSelected ? ColorScheme.DARK_GRAY_HOVER_COLOR : ColorScheme.DARKER_GRAY_COLOR);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.groupironpanel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The periods the panel can show the XP gained over.
+ */
+public enum XpGainedPeriod {
+    OFF("Off", 0),
+    DAY("Day", TimeUnit.DAYS.toMillis(1)),
+    WEEK("Week", TimeUnit.DAYS.toMillis(7)),
+    MONTH("Month", TimeUnit.DAYS.toMillis(30));
+
+    private final String name;
+
+    private final long millis;
+
+    XpGainedPeriod(String name, long millis) {
+        this.name = name;
+        this.millis = millis;
+    }
+
+    /**
+     * Returns the length of the period in milliseconds.
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
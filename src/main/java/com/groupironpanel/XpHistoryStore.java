@@ -0,0 +1,431 @@
+package com.groupironpanel;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.hiscore.HiscoreSkillType;
+import net.runelite.client.util.Text;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records the XP of each group member over time, so that the XP gained since a point in time can be shown.
+ * <p>
+ * Each member's history is a bounded ring buffer of entries. An entry holds a timestamp and, for every skill, the XP
+ * gained since the entry before it, so the buffer is made up of primitive arrays rather than hiscore objects. Entries
+ * recorded close together are merged. When the buffer fills up, older entries are merged into fewer, wider ones, so
+ * recent entries stay precise while the buffer always reaches back over the longest {@link XpGainedPeriod}. Only
+ * entries older than that are dropped from the buffer, and they are appended to an archive file on disk, which is rolled over once it
+ * grows too large. The whole store is kept in a second file so that it survives restarts.
+ */
+@Slf4j
+public class XpHistoryStore {
+    private static final int MAGIC = 0x47495848;
+
+    private static final int VERSION = 1;
+
+    /**
+     * The number of entries kept in memory for each member.
+     */
+    private static final int CAPACITY = 512;
+
+    /**
+     * Entries recorded within this long of the entry before them are merged into it.
+     */
+    private static final long MIN_ENTRY_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    /**
+     * Entries older than a day are downsampled to at most one per this interval, and entries older than a week to at
+     * most one per {@link #OLD_ENTRY_INTERVAL_MILLIS}. Even at worst, a month of history then fits in the buffer.
+     */
+    private static final long RECENT_ENTRY_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(2);
+
+    private static final long OLD_ENTRY_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(8);
+
+    /**
+     * How far back the history must reach, which is the longest period the XP gained can be shown over.
+     */
+    private static final long RETENTION_MILLIS;
+
+    /**
+     * The archive file is rolled over once it grows past this size, replacing the previous rolled over file.
+     */
+    private static final long MAX_ARCHIVE_BYTES = 1024 * 1024;
+
+    /**
+     * The skills whose XP is recorded. Values are indexed by {@link HiscoreSkill#ordinal()}, which for these skills
+     * are the first ordinals of the enum.
+     */
+    private static final int TRACKED_SKILL_COUNT;
+
+    static {
+        int count = 0;
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            if (isTracked(skill)) {
+                count = skill.ordinal() + 1;
+            }
+        }
+        TRACKED_SKILL_COUNT = count;
+
+        long retention = 0;
+        for (XpGainedPeriod period : XpGainedPeriod.values()) {
+            retention = Math.max(retention, period.getMillis());
+        }
+        RETENTION_MILLIS = retention;
+    }
+
+    private final File file;
+
+    private final File archiveFile;
+
+    private final Map<String, MemberHistory> histories = new HashMap<>();
+
+    /**
+     * @param file        The file the history is kept in.
+     * @param archiveFile The file entries are appended to once they are too old to be kept in memory.
+     */
+    public XpHistoryStore(File file, File archiveFile) {
+        this.file = file;
+        this.archiveFile = archiveFile;
+    }
+
+    /**
+     * Returns whether the XP gained in a skill is recorded.
+     */
+    public static boolean isTracked(HiscoreSkill skill) {
+        return skill.getType() == HiscoreSkillType.SKILL || skill.getType() == HiscoreSkillType.OVERALL;
+    }
+
+    /**
+     * Records a member's XP. Should not be called from the EDT, since it may write to the archive file.
+     *
+     * @param stats The member's stats.
+     */
+    public void record(PlayerStats stats) {
+        List<ArchivedEntry> evictedEntries;
+        synchronized (this) {
+            MemberHistory history = histories.computeIfAbsent(Text.standardize(stats.getPlayer()), name -> new MemberHistory());
+            evictedEntries = history.record(stats);
+        }
+        if (!evictedEntries.isEmpty()) {
+            archive(stats.getPlayer(), evictedEntries);
+        }
+    }
+
+    /**
+     * Calculates the XP a member has gained in each skill since a point in time, without allocating.
+     * If the history doesn't reach back that far, the XP gained since the oldest entry is used instead.
+     *
+     * @param player      The name of the member.
+     * @param sinceMillis The point in time, in milliseconds since the epoch.
+     * @param gainedXp    Filled with the XP gained, indexed by {@link HiscoreSkill#ordinal()}. Skills that aren't
+     *                    tracked, or members without any history, get 0.
+     */
+    public synchronized void getXpGainedSince(String player, long sinceMillis, long[] gainedXp) {
+        Arrays.fill(gainedXp, 0L);
+        MemberHistory history = player == null ? null : histories.get(Text.standardize(player));
+        if (history != null) {
+            history.getXpGainedSince(sinceMillis, gainedXp);
+        }
+    }
+
+    /**
+     * Loads the history from disk, replacing whatever is in memory.
+     */
+    public void load() throws IOException {
+        Map<String, MemberHistory> loaded = new HashMap<>();
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))))) {
+                if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION || in.readUnsignedShort() != TRACKED_SKILL_COUNT) {
+                    log.debug("Ignoring XP history file with an unknown format");
+                } else {
+                    while (in.readBoolean()) {
+                        String player = in.readUTF();
+                        loaded.put(Text.standardize(player), MemberHistory.read(in));
+                    }
+                }
+            }
+        }
+
+        synchronized (this) {
+            histories.clear();
+            histories.putAll(loaded);
+        }
+    }
+
+    /**
+     * Writes the history to disk. The history is only locked while it is copied, so that the panel can keep reading
+     * it while the copy is compressed and written.
+     */
+    public void save() throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(encoded)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeShort(TRACKED_SKILL_COUNT);
+            synchronized (this) {
+                for (Map.Entry<String, MemberHistory> entry : histories.entrySet()) {
+                    out.writeBoolean(true);
+                    out.writeUTF(entry.getKey());
+                    entry.getValue().write(out);
+                }
+            }
+            out.writeBoolean(false);
+        }
+
+        createParentDirectory(file);
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            encoded.writeTo(out);
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void archive(String player, List<ArchivedEntry> entries) {
+        try {
+            createParentDirectory(archiveFile);
+            if (archiveFile.length() >= MAX_ARCHIVE_BYTES) {
+                File rolledFile = new File(archiveFile.getPath() + ".1");
+                Files.move(archiveFile.toPath(), rolledFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(archiveFile, true)))) {
+                for (ArchivedEntry entry : entries) {
+                    out.writeUTF(player);
+                    out.writeLong(entry.timestamp);
+                    for (long xp : entry.xp) {
+                        out.writeLong(xp);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to archive XP history", e);
+        }
+    }
+
+    private static void createParentDirectory(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable to create directory " + parent);
+        }
+    }
+
+    private static final class ArchivedEntry {
+        private final long timestamp;
+
+        private final long[] xp;
+
+        private ArchivedEntry(long timestamp, long[] xp) {
+            this.timestamp = timestamp;
+            this.xp = xp;
+        }
+    }
+
+    /**
+     * The ring buffer of entries for a single member.
+     */
+    private static final class MemberHistory {
+        private final long[] timestamps = new long[CAPACITY];
+
+        /**
+         * The XP gained in each skill since the previous entry, {@link #TRACKED_SKILL_COUNT} values per entry.
+         * The deltas of the oldest entry are unused, since its XP is held in {@link #oldestXp}.
+         */
+        private final int[] deltas = new int[CAPACITY * TRACKED_SKILL_COUNT];
+
+        private final long[] oldestXp = new long[TRACKED_SKILL_COUNT];
+
+        private final long[] latestXp = new long[TRACKED_SKILL_COUNT];
+
+        private int head;
+
+        private int size;
+
+        List<ArchivedEntry> record(PlayerStats stats) {
+            List<ArchivedEntry> evictedEntries = new ArrayList<>(0);
+            long timestamp = stats.getTimestamp();
+
+            if (size == 0) {
+                head = 0;
+                size = 1;
+                timestamps[0] = timestamp;
+                for (int skill = 0; skill < TRACKED_SKILL_COUNT; skill++) {
+                    oldestXp[skill] = latestXp[skill] = Math.max(0, stats.getExperience(PlayerStats.HISCORE_SKILLS[skill]));
+                }
+                return evictedEntries;
+            }
+
+            int newest = index(size - 1);
+            if (timestamp < timestamps[newest]) {
+                return evictedEntries;
+            }
+
+            boolean changed = false;
+            for (int skill = 0; skill < TRACKED_SKILL_COUNT; skill++) {
+                changed |= Math.max(0, stats.getExperience(PlayerStats.HISCORE_SKILLS[skill])) != latestXp[skill];
+            }
+            if (!changed) {
+                return evictedEntries;
+            }
+
+            int entry;
+            if (size > 1 && timestamp - timestamps[index(size - 2)] < MIN_ENTRY_INTERVAL_MILLIS) {
+                // Too close to the entry before the newest one, so fold into the newest entry instead.
+                entry = newest;
+            } else {
+                if (size == CAPACITY) {
+                    makeRoom(timestamp, evictedEntries);
+                }
+                entry = index(size);
+                size++;
+                Arrays.fill(deltas, entry * TRACKED_SKILL_COUNT, (entry + 1) * TRACKED_SKILL_COUNT, 0);
+            }
+
+            timestamps[entry] = timestamp;
+            for (int skill = 0; skill < TRACKED_SKILL_COUNT; skill++) {
+                long xp = Math.max(0, stats.getExperience(PlayerStats.HISCORE_SKILLS[skill]));
+                deltas[entry * TRACKED_SKILL_COUNT + skill] += (int) (xp - latestXp[skill]);
+                latestXp[skill] = xp;
+            }
+            return evictedEntries;
+        }
+
+        void getXpGainedSince(long sinceMillis, long[] gainedXp) {
+            // Walk back from the newest entry, adding up the deltas of every entry recorded after the point in time.
+            for (int i = size - 1; i > 0; i--) {
+                int entry = index(i);
+                if (timestamps[entry] <= sinceMillis) {
+                    break;
+                }
+                int offset = entry * TRACKED_SKILL_COUNT;
+                for (int skill = 0; skill < TRACKED_SKILL_COUNT; skill++) {
+                    gainedXp[skill] += deltas[offset + skill];
+                }
+            }
+        }
+
+        /**
+         * Frees up space for a new entry, first by dropping entries that are too old for any period to reach, then by
+         * downsampling the older entries. Only if neither frees anything is the oldest entry dropped anyway.
+         */
+        private void makeRoom(long now, List<ArchivedEntry> evictedEntries) {
+            // Once no period reaches back past the second oldest entry, the oldest one isn't needed any more.
+            while (size > 1 && timestamps[index(1)] <= now - RETENTION_MILLIS) {
+                evictedEntries.add(evictOldest());
+            }
+            if (size == CAPACITY) {
+                downsample(now);
+            }
+            if (size == CAPACITY) {
+                evictedEntries.add(evictOldest());
+            }
+        }
+
+        /**
+         * Merges each entry into the entry after it wherever the merged entry would still be no wider than the
+         * interval allowed for its age.
+         */
+        private void downsample(long now) {
+            int kept = 1;
+            for (int i = 1; i < size; i++) {
+                int from = index(i);
+                if (i + 1 < size) {
+                    int next = index(i + 1);
+                    if (timestamps[next] - timestamps[index(kept - 1)] < entryInterval(now - timestamps[next])) {
+                        for (int skill = 0; skill < TRACKED_SKILL_COUNT; skill++) {
+                            deltas[next * TRACKED_SKILL_COUNT + skill] += deltas[from * TRACKED_SKILL_COUNT + skill];
+                        }
+                        continue;
+                    }
+                }
+                int to = index(kept++);
+                if (to != from) {
+                    timestamps[to] = timestamps[from];
+                    System.arraycopy(deltas, from * TRACKED_SKILL_COUNT, deltas, to * TRACKED_SKILL_COUNT, TRACKED_SKILL_COUNT);
+                }
+            }
+            size = kept;
+        }
+
+        private static long entryInterval(long ageMillis) {
+            if (ageMillis < XpGainedPeriod.DAY.getMillis()) {
+                return MIN_ENTRY_INTERVAL_MILLIS;
+            }
+            if (ageMillis < XpGainedPeriod.WEEK.getMillis()) {
+                return RECENT_ENTRY_INTERVAL_MILLIS;
+            }
+            return OLD_ENTRY_INTERVAL_MILLIS;
+        }
+
+        private ArchivedEntry evictOldest() {
+            ArchivedEntry evicted = new ArchivedEntry(timestamps[head], oldestXp.clone());
+            head = index(1);
+            size--;
+            int offset = head * TRACKED_SKILL_COUNT;
+            for (int skill = 0; skill < TRACKED_SKILL_COUNT; skill++) {
+                oldestXp[skill] += deltas[offset + skill];
+            }
+            return evicted;
+        }
+
+        private int index(int i) {
+            return (head + i) % CAPACITY;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeShort(size);
+            for (int skill = 0; skill < TRACKED_SKILL_COUNT; skill++) {
+                out.writeLong(oldestXp[skill]);
+            }
+            for (int i = 0; i < size; i++) {
+                int entry = index(i);
+                out.writeLong(timestamps[entry]);
+                if (i > 0) {
+                    for (int skill = 0; skill < TRACKED_SKILL_COUNT; skill++) {
+                        out.writeInt(deltas[entry * TRACKED_SKILL_COUNT + skill]);
+                    }
+                }
+            }
+        }
+
+        static MemberHistory read(DataInputStream in) throws IOException {
+            MemberHistory history = new MemberHistory();
+            int size = in.readUnsignedShort();
+            if (size > CAPACITY) {
+                throw new IOException("XP history has more entries than fit in memory");
+            }
+            for (int skill = 0; skill < TRACKED_SKILL_COUNT; skill++) {
+                history.oldestXp[skill] = history.latestXp[skill] = in.readLong();
+            }
+            for (int i = 0; i < size; i++) {
+                history.timestamps[i] = in.readLong();
+                history.size++;
+                if (i > 0) {
+                    for (int skill = 0; skill < TRACKED_SKILL_COUNT; skill++) {
+                        int delta = in.readInt();
+                        history.deltas[i * TRACKED_SKILL_COUNT + skill] = delta;
+                        history.latestXp[skill] += delta;
+                    }
+                }
+            }
+            return history;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.groupironpanel;
+
+import net.runelite.api.Experience;
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.hiscore.HiscoreSkillType;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.util.Random;
+
+/**
+ * Synthetic hiscores shared by the benchmarks and the load test.
+ */
+final class BenchmarkData {
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generates stats for a mid-game account, with every skill, boss and activity present.
+     */
+    static PlayerStats randomStats(String player, Random random) {
+        int[] ranks = PlayerStats.emptyInts();
+        int[] levels = PlayerStats.emptyInts();
+        long[] experience = PlayerStats.emptyLongs();
+
+        long totalXp = 0;
+        int totalLevel = 0;
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            int i = skill.ordinal();
+            ranks[i] = 1 + random.nextInt(2_000_000);
+            if (skill.getType() == HiscoreSkillType.SKILL) {
+                int xp = random.nextInt(20_000_000);
+                experience[i] = xp;
+                levels[i] = Math.min(Experience.MAX_REAL_LEVEL, Experience.getLevelForXp(xp));
+                totalXp += xp;
+                totalLevel += levels[i];
+            } else if (skill.getType() != HiscoreSkillType.OVERALL) {
+                levels[i] = random.nextInt(4) == 0 ? -1 : random.nextInt(2_000);
+            }
+        }
+        levels[HiscoreSkill.OVERALL.ordinal()] = totalLevel;
+        experience[HiscoreSkill.OVERALL.ordinal()] = totalXp;
+        return new PlayerStats(player, System.currentTimeMillis(), ranks, levels, experience);
+    }
+
+    /**
+     * Returns a copy of the stats with some XP gained in a single skill.
+     */
+    static PlayerStats withXpGained(PlayerStats stats, HiscoreSkill skill, int xp) {
+        int[] ranks = new int[PlayerStats.HISCORE_SKILLS.length];
+        int[] levels = new int[PlayerStats.HISCORE_SKILLS.length];
+        long[] experience = new long[PlayerStats.HISCORE_SKILLS.length];
+        for (HiscoreSkill s : PlayerStats.HISCORE_SKILLS) {
+            ranks[s.ordinal()] = stats.getRank(s);
+            levels[s.ordinal()] = stats.getLevel(s);
+            experience[s.ordinal()] = stats.getExperience(s);
+        }
+        experience[skill.ordinal()] += xp;
+        levels[skill.ordinal()] = Math.min(Experience.MAX_REAL_LEVEL, Experience.getLevelForXp((int) experience[skill.ordinal()]));
+        experience[HiscoreSkill.OVERALL.ordinal()] += xp;
+        return new PlayerStats(stats.getPlayer(), stats.getTimestamp() + 1, ranks, levels, experience);
+    }
+
+    /**
+     * Formats stats as a response from the hiscore JSON endpoint.
+     */
+    static String toJson(PlayerStats stats) {
+        StringBuilder skills = new StringBuilder();
+        StringBuilder activities = new StringBuilder();
+        int skillId = 0;
+        int activityId = 0;
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            if (skill.getType() == HiscoreSkillType.SKILL || skill.getType() == HiscoreSkillType.OVERALL) {
+                skills.append(skills.length() == 0 ? "" : ",")
+                        .append("{\"id\":").append(skillId++)
+                        .append(",\"name\":\"").append(skill.getName())
+                        .append("\",\"rank\":").append(stats.getRank(skill))
+                        .append(",\"level\":").append(stats.getLevel(skill))
+                        .append(",\"xp\":").append(stats.getExperience(skill)).append('}');
+            } else {
+                activities.append(activities.length() == 0 ? "" : ",")
+                        .append("{\"id\":").append(activityId++)
+                        .append(",\"name\":\"").append(skill.getName())
+                        .append("\",\"rank\":").append(stats.getRank(skill))
+                        .append(",\"score\":").append(stats.getLevel(skill)).append('}');
+            }
+        }
+        return "{\"skills\":[" + skills + "],\"activities\":[" + activities + "]}";
+    }
+
+    /**
+     * Formats stats as a response from the hiscore CSV endpoint.
+     */
+    static String toCsv(PlayerStats stats) {
+        StringBuilder csv = new StringBuilder();
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            csv.append(stats.getRank(skill)).append(',').append(stats.getLevel(skill));
+            if (skill.getType() == HiscoreSkillType.SKILL || skill.getType() == HiscoreSkillType.OVERALL) {
+                csv.append(',').append(stats.getExperience(skill));
+            }
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Creates an HTTP client that answers every hiscore request from memory, in whichever of the hiscore formats was
+     * requested, without touching the network.
+     */
+    static OkHttpClient inMemoryHiscoreClient(PlayerStats stats) {
+        final String json = toJson(stats);
+        final String csv = toCsv(stats);
+        return new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    Request request = chain.request();
+                    boolean isJson = request.url().encodedPath().endsWith(".json");
+                    return new Response.Builder()
+                            .request(request)
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(200)
+                            .message("OK")
+                            .body(ResponseBody.create(MediaType.parse(isJson ? "application/json" : "text/plain"), isJson ? json : csv))
+                            .build();
+                })
+                .build();
+    }
+}
@@ -0,0 +1,230 @@
+package com.groupironpanel;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.runelite.client.util.Text;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for the hiscores, served over real HTTP on the loopback interface so that lookups go through the
+ * same client, connection and parsing code as they do against the real hiscores.
+ * <p>
+ * Every player is on the hiscores, with stats generated from their name. Each response is delayed by a configurable
+ * latency, and a configurable share of requests fail with a server error or are throttled with a 429.
+ */
+final class FakeHiscoreServer implements AutoCloseable {
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "fake-hiscores");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The JSON and CSV responses for each player, keyed by the standardized player name.
+     */
+    private final Map<String, String[]> responses = new ConcurrentHashMap<>();
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private final AtomicInteger successCount = new AtomicInteger();
+
+    private final AtomicInteger errorCount = new AtomicInteger();
+
+    private final AtomicInteger throttledCount = new AtomicInteger();
+
+    private volatile long minLatencyMillis;
+
+    private volatile double meanExtraLatencyMillis;
+
+    private volatile double tailRate;
+
+    private volatile long tailLatencyMillis;
+
+    private volatile double errorRate;
+
+    private volatile double throttleRate;
+
+    FakeHiscoreServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Sets the latency of every response, which is the minimum plus an exponentially distributed extra delay.
+     *
+     * @param minLatencyMillis       The minimum latency.
+     * @param meanExtraLatencyMillis The mean of the extra delay, or 0 for a fixed latency.
+     */
+    void setLatency(long minLatencyMillis, double meanExtraLatencyMillis) {
+        this.minLatencyMillis = minLatencyMillis;
+        this.meanExtraLatencyMillis = meanExtraLatencyMillis;
+    }
+
+    /**
+     * Makes a share of the responses much slower than the rest, as happens when the hiscores are under load.
+     *
+     * @param tailRate          The share of responses that are slow, from 0 to 1.
+     * @param tailLatencyMillis The latency of the slow responses.
+     */
+    void setTailLatency(double tailRate, long tailLatencyMillis) {
+        this.tailRate = tailRate;
+        this.tailLatencyMillis = tailLatencyMillis;
+    }
+
+    /**
+     * @param errorRate The share of requests that fail with a server error, from 0 to 1.
+     */
+    void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * @param throttleRate The share of requests that are turned away with a 429, from 0 to 1.
+     */
+    void setThrottleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+    }
+
+    /**
+     * Returns an interceptor that sends every request to this server instead of the host it was made for, keeping
+     * its path and query.
+     */
+    Interceptor redirectInterceptor() {
+        final int port = server.getAddress().getPort();
+        return chain -> {
+            Request request = chain.request();
+            HttpUrl url = request.url().newBuilder()
+                    .scheme("http")
+                    .host(server.getAddress().getHostString())
+                    .port(port)
+                    .build();
+            return chain.proceed(request.newBuilder().url(url).build());
+        };
+    }
+
+    int getRequestCount() {
+        return requestCount.get();
+    }
+
+    int getSuccessCount() {
+        return successCount.get();
+    }
+
+    int getErrorCount() {
+        return errorCount.get();
+    }
+
+    int getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.incrementAndGet();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            sleep(latencyMillis(random));
+
+            if (random.nextDouble() < throttleRate) {
+                throttledCount.incrementAndGet();
+                respond(exchange, 429, "text/plain", "Too Many Requests");
+                return;
+            }
+            if (random.nextDouble() < errorRate) {
+                errorCount.incrementAndGet();
+                respond(exchange, 500, "text/plain", "Internal Server Error");
+                return;
+            }
+
+            String player = playerParameter(exchange.getRequestURI().getRawQuery());
+            if (player == null) {
+                respond(exchange, 404, "text/plain", "");
+                return;
+            }
+            String[] response = responses.computeIfAbsent(Text.standardize(player), name -> {
+                PlayerStats stats = BenchmarkData.randomStats(player, new Random(name.hashCode()));
+                return new String[]{BenchmarkData.toJson(stats), BenchmarkData.toCsv(stats)};
+            });
+            successCount.incrementAndGet();
+            if (exchange.getRequestURI().getPath().endsWith(".json")) {
+                respond(exchange, 200, "application/json", response[0]);
+            } else {
+                respond(exchange, 200, "text/plain", response[1]);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private long latencyMillis(Random random) {
+        if (random.nextDouble() < tailRate) {
+            return tailLatencyMillis;
+        }
+        long extra = meanExtraLatencyMillis > 0 ? (long) (-Math.log(1 - random.nextDouble()) * meanExtraLatencyMillis) : 0;
+        return minLatencyMillis + extra;
+    }
+
+    private static String playerParameter(String query) {
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("player=")) {
+                try {
+                    return URLDecoder.decode(parameter.substring("player=".length()), "UTF-8");
+                } catch (UnsupportedEncodingException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.groupironpanel;
+
+import net.runelite.api.widgets.Widget;
+import net.runelite.client.hiscore.HiscoreClient;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.SwingUtilities;
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Drives thousands of refreshes of the panel against a {@link FakeHiscoreServer} with realistic latency, server
+ * errors and throttling, and reports how long each member's stats took to appear in the panel, how many requests the
+ * hiscores saw and how much memory the panel retained.
+ * <p>
+ * Every few refreshes the group tab is "opened" with a changed roster, which is parsed and applied the same way the
+ * plugin's auto-detection does. Nothing leaves the machine, and the panel is never shown, so this runs headless.
+ * <p>
+ * This is not part of the regular test run. Run it with {@code ./gradlew loadTest}, and tune it with system
+ * properties, e.g. {@code ./gradlew loadTest -Dloadtest.refreshes=5000 -Dloadtest.throttleRate=0.2}.
+ */
+public class GroupIronPanelLoadTest {
+    private static final int REFRESHES = Integer.getInteger("loadtest.refreshes", 2000);
+
+    private static final int AUTO_DETECT_INTERVAL = Integer.getInteger("loadtest.autoDetectInterval", 50);
+
+    private static final int MAX_CONCURRENT_LOOKUPS = Integer.getInteger("loadtest.maxConcurrentLookups", 5);
+
+    private static final long MIN_LATENCY_MILLIS = Long.getLong("loadtest.minLatencyMillis", 2);
+
+    private static final double MEAN_EXTRA_LATENCY_MILLIS = doubleProperty("loadtest.meanExtraLatencyMillis", 5);
+
+    private static final double TAIL_RATE = doubleProperty("loadtest.tailRate", 0.005);
+
+    private static final long TAIL_LATENCY_MILLIS = Long.getLong("loadtest.tailLatencyMillis", 150);
+
+    private static final double ERROR_RATE = doubleProperty("loadtest.errorRate", 0.02);
+
+    private static final double THROTTLE_RATE = doubleProperty("loadtest.throttleRate", 0.03);
+
+    private static final boolean LIGHTWEIGHT_LOOKUPS = Boolean.getBoolean("loadtest.lightweightLookups");
+
+    private static final long REFRESH_TIMEOUT_SECONDS = 30;
+
+    private static final long MAX_RETAINED_HEAP_GROWTH_BYTES = 32 * 1024 * 1024;
+
+    private static final List<String> ROSTER = Arrays.asList("Alice", "Bob", "Carol", "Dave", "Eve", "Frank", "Grace", "Heidi");
+
+    private static final int GROUP_SIZE = 5;
+
+    private FakeHiscoreServer server;
+
+    private ScheduledThreadPoolExecutor executor;
+
+    private HiscoreLookupGateway lookupGateway;
+
+    private GroupIronPanel panel;
+
+    private RenderProbe renderProbe;
+
+    private int lastGroupFingerprint;
+
+    private int rosterChanges;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeHiscoreServer();
+        server.setLatency(MIN_LATENCY_MILLIS, MEAN_EXTRA_LATENCY_MILLIS);
+        server.setTailLatency(TAIL_RATE, TAIL_LATENCY_MILLIS);
+        server.setErrorRate(ERROR_RATE);
+        server.setThrottleRate(THROTTLE_RATE);
+
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(server.redirectInterceptor())
+                .build();
+        lookupGateway = new HiscoreLookupGateway(new HiscoreClient(httpClient), MAX_CONCURRENT_LOOKUPS);
+        if (LIGHTWEIGHT_LOOKUPS) {
+            lookupGateway.setStreamingClient(new StreamingHiscoreClient(httpClient));
+        }
+
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        PanelMetrics metrics = new PanelMetrics(lookupGateway);
+        SwingUtilities.invokeAndWait(() -> panel = new GroupIronPanel(lookupGateway, executor, metrics));
+
+        renderProbe = new RenderProbe();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(renderProbe);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        SwingUtilities.invokeAndWait(() -> panel.shutDown());
+        lookupGateway.shutDown();
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    public void testRefreshUnderLoad() throws Exception {
+        autoDetect(0);
+        final long startHeap = retainedHeap();
+        final long startTime = System.nanoTime();
+
+        int lookupResults = 0;
+        for (int i = 0; i < REFRESHES; i++) {
+            if (i > 0 && i % AUTO_DETECT_INTERVAL == 0) {
+                autoDetect(i / AUTO_DETECT_INTERVAL);
+            }
+
+            renderProbe.begin();
+            List<PlayerStats> results = panel.refreshPanel().get(REFRESH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            lookupResults += results.size();
+            renderProbe.awaitRendered(results.size());
+        }
+
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        SwingUtilities.invokeAndWait(() -> {
+        });
+        final long endHeap = retainedHeap();
+        final List<Long> renderTimes = renderProbe.getRenderTimes();
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Refreshes:            %d in %d ms, %d roster changes%n", REFRESHES, elapsedMillis, rosterChanges));
+        report.append(String.format("Member lookups:       %d rendered, %d failed%n",
+                renderTimes.size(), REFRESHES * GROUP_SIZE - lookupResults));
+        report.append(String.format("Time to render:       p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                percentile(renderTimes, 0.50), percentile(renderTimes, 0.99), percentile(renderTimes, 1.0)));
+        report.append(String.format("Hiscore requests:     %d (%d ok, %d errors, %d throttled)%n",
+                server.getRequestCount(), server.getSuccessCount(), server.getErrorCount(), server.getThrottledCount()));
+        report.append(String.format("Gateway:              %d issued, %d merged%n",
+                lookupGateway.getIssuedCount(), lookupGateway.getMergedCount()));
+        report.append(String.format("Retained heap:        %d KB before, %d KB after%n", startHeap / 1024, endHeap / 1024));
+        System.out.print(report);
+
+        assertEquals("Every lookup should reach the hiscores exactly once",
+                lookupGateway.getIssuedCount(), server.getRequestCount());
+        assertEquals("Every successful lookup should be rendered", lookupResults, renderTimes.size());
+        assertEquals("Tasks left on the executor", 0, executor.getQueue().size());
+        assertTrue("Retained heap grew by " + (endHeap - startHeap) / 1024 + " KB",
+                endHeap - startHeap < MAX_RETAINED_HEAP_GROWTH_BYTES);
+    }
+
+    /**
+     * Simulates opening the group tab with a roster that differs from the last one by a single member, and applies
+     * it to the panel the same way the plugin's auto-detection and refresh scheduler do.
+     *
+     * @param change The number of the roster change, which picks the member who is swapped in.
+     */
+    private void autoDetect(int change) {
+        List<String> roster = new ArrayList<>(ROSTER.subList(0, GROUP_SIZE));
+        if (change > 0) {
+            roster.set(change % GROUP_SIZE, ROSTER.get(GROUP_SIZE + change % (ROSTER.size() - GROUP_SIZE)));
+        }
+
+        Widget[] groupNameWidgets = {widget("Load Test", null)};
+        Widget[] groupMemberWidgets = new Widget[roster.size()];
+        for (int i = 0; i < roster.size(); i++) {
+            groupMemberWidgets[i] = widget(null, "<col=ff9040>" + roster.get(i) + "</col>");
+        }
+
+        int fingerprint = GroupInfoParser.fingerprint(groupNameWidgets, groupMemberWidgets);
+        if (fingerprint == lastGroupFingerprint) {
+            return;
+        }
+        lastGroupFingerprint = fingerprint;
+        rosterChanges++;
+
+        panel.setGroupName(GroupInfoParser.parseGroupName(groupNameWidgets));
+        panel.setGroupMembers(GroupInfoParser.parseGroupMembers(groupMemberWidgets));
+    }
+
+    private static Widget widget(String text, String name) {
+        Widget widget = mock(Widget.class, withSettings().stubOnly());
+        doReturn(text).when(widget).getText();
+        doReturn(name).when(widget).getName();
+        return widget;
+    }
+
+    private static double percentile(List<Long> sortedNanos, double percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(0, index)) / 1_000_000.0;
+    }
+
+    private static double doubleProperty(String key, double defaultValue) {
+        String value = System.getProperty(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    private static long retainedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Watches the EDT and records how long after the start of a refresh each member's fresh stats were first shown in
+     * one of the panel's stats panels.
+     */
+    private final class RenderProbe extends EventQueue {
+        private static final long RENDER_TIMEOUT_MILLIS = 1000;
+
+        /**
+         * The time to render of every member in every refresh so far, in nanoseconds. Only accessed with the lock held.
+         */
+        private final List<Long> renderTimes = new ArrayList<>();
+
+        /**
+         * The members whose stats have been shown since the current refresh started.
+         */
+        private final Set<String> rendered = new HashSet<>();
+
+        private long refreshStartNanos;
+
+        private long refreshStartMillis = Long.MAX_VALUE;
+
+        synchronized void begin() {
+            rendered.clear();
+            refreshStartMillis = System.currentTimeMillis();
+            refreshStartNanos = System.nanoTime();
+        }
+
+        /**
+         * Waits for the given number of members to be shown, since the render can be queued just after the refresh
+         * itself completes.
+         */
+        synchronized void awaitRendered(int members) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + RENDER_TIMEOUT_MILLIS;
+            while (rendered.size() < members && System.currentTimeMillis() < deadline) {
+                wait(RENDER_TIMEOUT_MILLIS);
+            }
+        }
+
+        synchronized List<Long> getRenderTimes() {
+            List<Long> sorted = new ArrayList<>(renderTimes);
+            Collections.sort(sorted);
+            return sorted;
+        }
+
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            super.dispatchEvent(event);
+            if (panel != null) {
+                recordRendered();
+            }
+        }
+
+        private synchronized void recordRendered() {
+            long now = System.nanoTime();
+            boolean changed = false;
+            for (Component component : panel.getComponents()) {
+                if (!(component instanceof PlayerStatsPanel)) {
+                    continue;
+                }
+                PlayerStatsPanel statsPanel = (PlayerStatsPanel) component;
+                PlayerStats stats = statsPanel.getStats();
+                if (stats != null && stats.getTimestamp() >= refreshStartMillis && rendered.add(statsPanel.getPlayer())) {
+                    renderTimes.add(now - refreshStartNanos);
+                    changed = true;
+                }
+            }
+            if (changed) {
+                notifyAll();
+            }
+        }
+    }
+}
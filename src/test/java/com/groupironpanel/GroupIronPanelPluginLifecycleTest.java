@@ -0,0 +1,211 @@
+package com.groupironpanel;
+
+import com.google.inject.Guice;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import net.runelite.api.Client;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.ui.ClientToolbar;
+import net.runelite.client.ui.NavigationButton;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Starts and stops the plugin over and over, checking that nothing from a stopped plugin is left behind.
+ * <p>
+ * Each start looks up a group whose lookups fail or are never found, so stopping the plugin regularly catches lookups,
+ * timeouts and refreshes in flight. The plugin keeps its files in a temporary directory rather than the RuneLite
+ * directory.
+ */
+public class GroupIronPanelPluginLifecycleTest {
+    private static final int WARMUP_TOGGLES = 20;
+
+    private static final int TOGGLES = 300;
+
+    private static final long MAX_HEAP_GROWTH_BYTES = 16 * 1024 * 1024;
+
+    private static final int MAX_THREAD_GROWTH = 4;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Bind
+    private final Client client = mock(Client.class, withSettings().stubOnly());
+
+    @Bind
+    private final ClientThread clientThread = mock(ClientThread.class, withSettings().stubOnly());
+
+    @Bind
+    private final ClientToolbar clientToolbar = mock(ClientToolbar.class, withSettings().stubOnly());
+
+    @Bind
+    private final GroupIronPanelConfig config = mock(GroupIronPanelConfig.class, withSettings().stubOnly().defaultAnswer(CALLS_REAL_METHODS));
+
+    @Bind
+    private ScheduledExecutorService executor;
+
+    @Bind
+    private OkHttpClient okHttpClient;
+
+    @Bind
+    @Named(GroupIronPanelPlugin.DATA_DIRECTORY)
+    private File dataDirectory;
+
+    @Inject
+    private GroupIronPanelPlugin plugin;
+
+    /**
+     * The panel added to the toolbar by each start, which should become unreachable once the plugin is stopped.
+     */
+    private final List<WeakReference<Object>> panels = new ArrayList<>();
+
+    private ScheduledThreadPoolExecutor threadPoolExecutor;
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        dataDirectory = temporaryFolder.newFolder("groupironpanel");
+        threadPoolExecutor = new ScheduledThreadPoolExecutor(1);
+        threadPoolExecutor.setRemoveOnCancelPolicy(true);
+        executor = threadPoolExecutor;
+
+        // Alice isn't on the hiscores, and every other lookup fails outright, without any network. Failed lookups aren't
+        // shared between clients, so every start looks the other members up again.
+        okHttpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    requestCount.incrementAndGet();
+                    if (!"Alice".equals(chain.request().url().queryParameter("player"))) {
+                        throw new IOException("Offline");
+                    }
+                    return new Response.Builder()
+                            .request(chain.request())
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(404)
+                            .message("Not Found")
+                            .body(ResponseBody.create(MediaType.parse("text/plain"), ""))
+                            .build();
+                })
+                .build();
+
+        doReturn("Group").when(config).groupName();
+        doReturn("Alice, Bob, Carol, Dave, Eve").when(config).groupMembers();
+        doReturn("Rivals: Frank, Grace").when(config).watchlist();
+        doReturn(true).when(config).showDiagnostics();
+        doAnswer(invocation -> {
+            NavigationButton button = invocation.getArgument(0);
+            panels.add(new WeakReference<>(button.getPanel()));
+            return null;
+        }).when(clientToolbar).addNavigation(any(NavigationButton.class));
+
+        Guice.createInjector(BoundFieldModule.of(this)).injectMembers(this);
+    }
+
+    @After
+    public void tearDown() {
+        threadPoolExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testToggleDoesNotLeak() throws Exception {
+        toggle(WARMUP_TOGGLES);
+        settle();
+        final long baselineHeap = usedHeap();
+        final int baselineThreads = Thread.activeCount();
+        final int baselineRequests = requestCount.get();
+
+        toggle(TOGGLES);
+        settle();
+
+        assertEquals("Tasks left on the executor", 0, threadPoolExecutor.getQueue().size());
+        assertTrue("Threads grew from " + baselineThreads + " to " + Thread.activeCount(),
+                Thread.activeCount() <= baselineThreads + MAX_THREAD_GROWTH);
+        long heapGrowth = usedHeap() - baselineHeap;
+        assertTrue("Retained heap grew by " + heapGrowth / 1024 + " KB", heapGrowth < MAX_HEAP_GROWTH_BYTES);
+        for (WeakReference<Object> panel : panels) {
+            assertNull("A stopped plugin's panel is still reachable", panel.get());
+        }
+        assertTrue("No lookups were made, so none were in flight when the plugin stopped",
+                requestCount.get() > baselineRequests);
+    }
+
+    private void toggle(int times) throws Exception {
+        for (int i = 0; i < times; i++) {
+            SwingUtilities.invokeAndWait(() -> {
+                run(plugin::startUp);
+                // Lookups are deferred until the panel is shown, so show it as the client would when it is opened.
+                ((GroupIronPanel) panels.get(panels.size() - 1).get()).onActivate();
+            });
+            // Give the refresh started by the plugin a moment to get its lookups in flight every so often.
+            if (i % 10 == 0) {
+                Thread.sleep(5);
+            }
+            SwingUtilities.invokeAndWait(() -> run(plugin::shutDown));
+        }
+    }
+
+    private static void run(PluginAction action) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Waits for the work queued by the stopped plugins to drain, then collects the garbage.
+     */
+    private void settle() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            threadPoolExecutor.submit(() -> {
+            }).get(10, TimeUnit.SECONDS);
+            SwingUtilities.invokeAndWait(() -> {
+            });
+            Thread.sleep(100);
+        }
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private interface PluginAction {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,79 @@
+package com.groupironpanel;
+
+import net.runelite.client.hiscore.HiscoreClient;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that the live stats of the member logged in on this client are shown however they arrive relative to the
+ * group's members. Lookups for the other members fail without reaching the network.
+ */
+public class GroupIronPanelTest {
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final PlayerStats localStats = BenchmarkData.randomStats("Alice", new Random(42));
+
+    private ScheduledThreadPoolExecutor executor;
+
+    private HiscoreLookupGateway lookupGateway;
+
+    private GroupIronPanel panel;
+
+    @Before
+    public void setUp() throws Exception {
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    throw new IOException("Offline");
+                })
+                .build();
+        lookupGateway = new HiscoreLookupGateway(new HiscoreClient(httpClient), 1);
+        executor = new ScheduledThreadPoolExecutor(1);
+        PanelMetrics metrics = new PanelMetrics(lookupGateway);
+        SwingUtilities.invokeAndWait(() -> panel = new GroupIronPanel(lookupGateway, executor, metrics));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        SwingUtilities.invokeAndWait(() -> panel.shutDown());
+        lookupGateway.shutDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testLocalStatsBeforeMembers() {
+        panel.setLocalPlayer("Alice");
+        panel.updateLocalStats(localStats);
+        panel.setGroupMembers(Arrays.asList("Alice", "Bob"));
+
+        assertLocalStatsShown();
+    }
+
+    @Test
+    public void testRefreshShowsLocalStats() throws Exception {
+        panel.setLocalPlayer("Alice");
+        panel.updateLocalStats(localStats);
+        panel.setGroupMembers(Arrays.asList("Alice", "Bob"));
+
+        assertSame(localStats, panel.refreshMember("Alice").get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        panel.refreshPanel().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertLocalStatsShown();
+    }
+
+    private void assertLocalStatsShown() {
+        GroupState.MemberState memberState = panel.getState().getMember("Alice");
+        assertNotNull("Alice's stats were dropped", memberState);
+        assertSame(localStats, memberState.getStats());
+    }
+}
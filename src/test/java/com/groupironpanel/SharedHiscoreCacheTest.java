@@ -0,0 +1,186 @@
+package com.groupironpanel;
+
+import net.runelite.client.hiscore.HiscoreEndpoint;
+import net.runelite.client.hiscore.HiscoreSkill;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs two caches against the same file, standing in for two clients on the same machine.
+ * <p>
+ * Both caches share one executor. File locks are held by the whole JVM rather than by a thread, so two caches in the
+ * same JVM can't take turns on the file any other way, and it keeps the order of their file access predictable.
+ */
+public class SharedHiscoreCacheTest {
+    private static final long TIMEOUT_SECONDS = 5;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final PlayerStats stats = BenchmarkData.randomStats("Member", new Random(42));
+
+    private File file;
+
+    private ScheduledExecutorService executor;
+
+    private SharedHiscoreCache first;
+
+    private SharedHiscoreCache second;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File(temporaryFolder.newFolder("groupironpanel"), "shared-hiscores.bin");
+        executor = Executors.newSingleThreadScheduledExecutor();
+        first = new SharedHiscoreCache(file, executor);
+        second = new SharedHiscoreCache(file, executor);
+    }
+
+    @After
+    public void tearDown() {
+        first.close();
+        second.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testFreshHit() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+
+        assertStats(get(first.lookup("member", HiscoreEndpoint.NORMAL, false, false, fetch(fetches, stats))));
+        assertStats(get(second.lookup("member", HiscoreEndpoint.NORMAL, false, false, fetch(fetches, null))));
+
+        assertEquals(1, fetches.get());
+        assertEquals(1, first.getFetchCount());
+        assertEquals(1, second.getHitCount());
+    }
+
+    @Test
+    public void testFreshLookupSkipsPublishedResult() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+
+        get(first.lookup("member", HiscoreEndpoint.NORMAL, false, false, fetch(fetches, stats)));
+        // Results are timed to the millisecond, so make sure the fresh lookup starts after the first was sent.
+        Thread.sleep(10);
+        assertStats(get(second.lookup("member", HiscoreEndpoint.NORMAL, false, true, fetch(fetches, stats))));
+
+        assertEquals(2, fetches.get());
+        assertEquals(0, second.getHitCount());
+    }
+
+    @Test
+    public void testWaitsForLease() throws Exception {
+        CompletableFuture<PlayerStats> firstFetch = new CompletableFuture<>();
+        AtomicInteger secondFetches = new AtomicInteger();
+
+        CompletableFuture<PlayerStats> firstLookup = first.lookup("member", HiscoreEndpoint.NORMAL, false, false, () -> firstFetch);
+        awaitFetch(first);
+        CompletableFuture<PlayerStats> secondLookup = second.lookup("member", HiscoreEndpoint.NORMAL, false, false, fetch(secondFetches, null));
+
+        // The second client has to wait for the first, whose lease is still held.
+        Thread.sleep(500);
+        assertFalse(secondLookup.isDone());
+
+        firstFetch.complete(stats);
+        assertStats(get(firstLookup));
+        assertStats(get(secondLookup));
+        assertEquals(0, secondFetches.get());
+        assertEquals(1, second.getHitCount());
+    }
+
+    @Test
+    public void testFreshLookupSkipsEarlierLease() throws Exception {
+        CompletableFuture<PlayerStats> firstFetch = new CompletableFuture<>();
+        AtomicInteger secondFetches = new AtomicInteger();
+
+        first.lookup("member", HiscoreEndpoint.NORMAL, false, false, () -> firstFetch);
+        awaitFetch(first);
+        Thread.sleep(10);
+        CompletableFuture<PlayerStats> secondLookup = second.lookup("member", HiscoreEndpoint.NORMAL, false, true, fetch(secondFetches, stats));
+
+        // The first client's fetch was sent before the fresh lookup started, so its result may predate the change.
+        firstFetch.complete(null);
+        assertStats(get(secondLookup));
+        assertEquals(1, secondFetches.get());
+        assertEquals(0, second.getHitCount());
+    }
+
+    @Test
+    public void testRecoversCorruptedFile() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0x47495043);
+            out.writeByte(1);
+            out.writeBoolean(true);
+            // A key whose length runs into bytes that aren't valid modified UTF-8.
+            out.writeShort(4);
+            out.writeInt(0xFFFFFFFF);
+            out.writeLong(0);
+        }
+        Files.write(file.toPath(), bytes.toByteArray());
+        AtomicInteger fetches = new AtomicInteger();
+
+        assertStats(get(first.lookup("member", HiscoreEndpoint.NORMAL, false, false, fetch(fetches, stats))));
+        assertStats(get(second.lookup("member", HiscoreEndpoint.NORMAL, false, false, fetch(fetches, null))));
+
+        assertEquals(1, fetches.get());
+        assertEquals(1, second.getHitCount());
+    }
+
+    @Test
+    public void testSkillsOnlyNotServedToFullLookups() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+
+        get(first.lookup("member", HiscoreEndpoint.NORMAL, true, false, fetch(fetches, stats)));
+        assertStats(get(second.lookup("member", HiscoreEndpoint.NORMAL, false, false, fetch(fetches, stats))));
+        assertStats(get(second.lookup("member", HiscoreEndpoint.NORMAL, true, false, fetch(fetches, null))));
+
+        assertEquals(2, fetches.get());
+        assertEquals(1, second.getHitCount());
+    }
+
+    private static Supplier<CompletableFuture<PlayerStats>> fetch(AtomicInteger fetches, PlayerStats stats) {
+        return () -> {
+            fetches.incrementAndGet();
+            return CompletableFuture.completedFuture(stats);
+        };
+    }
+
+    private static PlayerStats get(CompletableFuture<PlayerStats> lookup) throws Exception {
+        return lookup.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static void awaitFetch(SharedHiscoreCache cache) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (cache.getFetchCount() == 0) {
+            assertTrue("Timed out waiting for the lease to be taken", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void assertStats(PlayerStats result) {
+        assertEquals(stats.getPlayer(), result.getPlayer());
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            assertEquals(skill.getName(), stats.getExperience(skill), result.getExperience(skill));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.groupironpanel;
+
+import net.runelite.client.hiscore.HiscoreSkill;
+import net.runelite.client.hiscore.HiscoreSkillType;
+import okio.Buffer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class StreamingHiscoreClientTest {
+    private static final long TIMESTAMP = 1_700_000_000_000L;
+
+    @Test
+    public void testParseSkills() throws IOException {
+        PlayerStats expected = BenchmarkData.randomStats("Member", new Random(42));
+
+        PlayerStats stats = parse(BenchmarkData.toCsv(expected));
+
+        assertEquals("Member", stats.getPlayer());
+        assertEquals(TIMESTAMP, stats.getTimestamp());
+        assertSkillsEqual(expected, stats);
+        assertActivitiesEmpty(stats);
+    }
+
+    @Test
+    public void testParseCrlf() throws IOException {
+        PlayerStats expected = BenchmarkData.randomStats("Member", new Random(42));
+
+        PlayerStats stats = parse(BenchmarkData.toCsv(expected).replace("\n", "\r\n"));
+
+        assertSkillsEqual(expected, stats);
+    }
+
+    @Test
+    public void testParseUnranked() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            csv.append(skill == HiscoreSkill.ATTACK ? "-1,1,-1" : "100,50,101333").append('\n');
+        }
+
+        PlayerStats stats = parse(csv.toString());
+
+        assertEquals(-1, stats.getRank(HiscoreSkill.ATTACK));
+        assertEquals(1, stats.getLevel(HiscoreSkill.ATTACK));
+        assertEquals(-1, stats.getExperience(HiscoreSkill.ATTACK));
+        assertEquals(100, stats.getRank(HiscoreSkill.DEFENCE));
+        assertEquals(50, stats.getLevel(HiscoreSkill.DEFENCE));
+        assertEquals(101333, stats.getExperience(HiscoreSkill.DEFENCE));
+    }
+
+    @Test
+    public void testParseTruncatedAfterLine() throws IOException {
+        PlayerStats stats = parse("10,2000,200000000\n20,99,13034431\n");
+
+        assertEquals(10, stats.getRank(HiscoreSkill.OVERALL));
+        assertEquals(99, stats.getLevel(HiscoreSkill.ATTACK));
+        assertEquals(-1, stats.getRank(HiscoreSkill.DEFENCE));
+        assertEquals(-1, stats.getLevel(HiscoreSkill.DEFENCE));
+        assertEquals(-1, stats.getExperience(HiscoreSkill.DEFENCE));
+    }
+
+    @Test
+    public void testParseTruncatedMidLine() {
+        try {
+            parse("10,2000,200000000\n20,99");
+            fail("Expected the truncated line to be rejected");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testParseMalformed() {
+        try {
+            parse("10;2000;200000000\n");
+            fail("Expected the malformed line to be rejected");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static PlayerStats parse(String csv) throws IOException {
+        return StreamingHiscoreClient.parse("Member", TIMESTAMP, new Buffer().writeUtf8(csv));
+    }
+
+    private static void assertSkillsEqual(PlayerStats expected, PlayerStats stats) {
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            if (isSkill(skill)) {
+                assertEquals(skill.getName(), expected.getRank(skill), stats.getRank(skill));
+                assertEquals(skill.getName(), expected.getLevel(skill), stats.getLevel(skill));
+                assertEquals(skill.getName(), expected.getExperience(skill), stats.getExperience(skill));
+            }
+        }
+    }
+
+    private static void assertActivitiesEmpty(PlayerStats stats) {
+        for (HiscoreSkill skill : PlayerStats.HISCORE_SKILLS) {
+            if (!isSkill(skill)) {
+                assertEquals(skill.getName(), -1, stats.getRank(skill));
+                assertEquals(skill.getName(), -1, stats.getLevel(skill));
+            }
+        }
+    }
+
+    private static boolean isSkill(HiscoreSkill skill) {
+        return skill.getType() == HiscoreSkillType.SKILL || skill.getType() == HiscoreSkillType.OVERALL;
+    }
+}